@@ -0,0 +1,150 @@
+import benchmark.Workload;
+
+import java.util.Properties;
+import java.util.Random;
+
+/**
+ * Klass BenchmarkWorkloads sisaldab paketi benchmark jõudlustestide mõõdetavaid töid. Tööd asuvad vaikepaketis, et
+ * neil oleks ligipääs analüüsi klassidele. Sünteetilised tööajad järgivad ruutfunktsiooni 5% müraga, sisendi suurused
+ * on ühtlaselt jaotatud nagu täiendavate punktide mõõtmisel.
+ */
+public final class BenchmarkWorkloads {
+    private static final long STEP = 1000;
+
+    private BenchmarkWorkloads() {
+    }
+
+    /**
+     * Tühi mõõdetav meetod mõõtmisvahendi kulu leidmiseks
+     *
+     * @param n sisendi suurus
+     */
+    public static void empty(long n) {
+    }
+
+    private static double time(long n, Random random) {
+        return 1e-6 * n * n * (1 + 0.05 * random.nextGaussian());
+    }
+
+    private static ResultHolder fill(int points, int repeats) {
+        ResultHolder holder = new ResultHolder();
+        Random random = new Random(42);
+        for (int i = 1; i <= points; i++) {
+            for (int j = 0; j < repeats; j++) {
+                holder.addTime(i * STEP, time(i * STEP, random));
+            }
+        }
+        return holder;
+    }
+
+    public static final class AddTime implements Workload {
+        private long[] sizes;
+        private Double[] times;
+
+        @Override
+        public void setup(int points, int repeats, Properties config) {
+            Config.setOverrides(config);
+            sizes = new long[points * repeats];
+            times = new Double[points * repeats];
+            Random random = new Random(42);
+            for (int i = 0; i < sizes.length; i++) {
+                sizes[i] = (i / repeats + 1) * STEP;
+                times[i] = time(sizes[i], random);
+            }
+        }
+
+        @Override
+        public Object run() {
+            ResultHolder holder = new ResultHolder();
+            for (int i = 0; i < sizes.length; i++) {
+                holder.addTime(sizes[i], times[i]);
+            }
+            return holder;
+        }
+    }
+
+    public static final class GetFunction implements Workload {
+        private ResultHolder holder;
+
+        @Override
+        public void setup(int points, int repeats, Properties config) {
+            Config.setOverrides(config);
+            holder = fill(points, repeats);
+        }
+
+        @Override
+        public Object run() {
+            return holder.getFunction();
+        }
+    }
+
+    public static final class FindFunction implements Workload {
+        private double[] x;
+        private double[] y;
+
+        @Override
+        public void setup(int points, int repeats, Properties config) {
+            Config.setOverrides(config);
+            x = new double[points];
+            y = new double[points];
+            Random random = new Random(42);
+            for (int i = 0; i < points; i++) {
+                x[i] = (i + 1) * STEP;
+                y[i] = time((i + 1) * STEP, random);
+            }
+        }
+
+        @Override
+        public Object run() {
+            return ComplexityFinder.findFunction(x, y);
+        }
+    }
+
+    public static final class Search implements Workload {
+        @Override
+        public void setup(int points, int repeats, Properties config) {
+            Config.setOverrides(config);
+        }
+
+        @Override
+        public Object run() {
+            GuessProvider guessProvider = new GuessProvider(0, Integer.MAX_VALUE, 2000L);
+            Random random = new Random(42);
+            for (int step = 0; step < 1000 && !guessProvider.isFinished(); step++) {
+                guessProvider.findNext(time(guessProvider.getCurrent(), random));
+            }
+            return guessProvider.getCurrent();
+        }
+    }
+
+    public static final class Invoke implements Workload {
+        private MethodRunner runner;
+        private final Object input = STEP;
+
+        @Override
+        public void setup(int points, int repeats, Properties config) throws Exception {
+            Config.setOverrides(config);
+            runner = new MethodRunner(Invoker.bind(BenchmarkWorkloads.class.getMethod("empty", long.class)), new InputPool(n -> n));
+        }
+
+        @Override
+        public Object run() throws Exception {
+            return runner.invoke(input);
+        }
+    }
+
+    public static final class Measure implements Workload {
+        private MethodRunner runner;
+
+        @Override
+        public void setup(int points, int repeats, Properties config) throws Exception {
+            Config.setOverrides(config);
+            runner = new MethodRunner(Invoker.bind(BenchmarkWorkloads.class.getMethod("empty", long.class)), new InputPool(n -> n));
+        }
+
+        @Override
+        public Object run() throws Exception {
+            return runner.run(1, STEP);
+        }
+    }
+}
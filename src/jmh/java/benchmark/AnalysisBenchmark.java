@@ -0,0 +1,127 @@
+package benchmark;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.Properties;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Analüüsi andmetöötluse jõudlustestid: mõõtmistulemuste salvestamine, keerukuse leidmine ning topeltkahendotsing.
+ * Andmed on sünteetilised, 100 kuni 100 000 sisendi suurust ning iga suuruse kohta 1 kuni 10 mõõtmist.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(value = 1, jvmArgsAppend = "-Dorg.slf4j.simpleLogger.defaultLogLevel=warn")
+public class AnalysisBenchmark {
+
+    /**
+     * Mõõtmistulemuste hoidla täitmine: points * repeats väljakutset ResultHolder.addTime
+     */
+    @State(Scope.Thread)
+    public static class AddTime {
+        @Param({"100", "1000", "10000", "100000"})
+        public int points;
+        @Param({"1", "10"})
+        public int repeats;
+        Workload workload;
+
+        @Setup(Level.Trial)
+        public void setup() throws Exception {
+            workload = Workload.load("AddTime");
+            workload.setup(points, repeats, new Properties());
+        }
+    }
+
+    /**
+     * Keerukuse leidmine täidetud hoidlast, mis hõlmab iga sisendi suuruse tööaja hindamist ning regressiooni
+     */
+    @State(Scope.Thread)
+    public static class GetFunction {
+        @Param({"100", "1000", "10000", "100000"})
+        public int points;
+        @Param({"1", "10"})
+        public int repeats;
+        @Param({"mean", "median", "trimmed"})
+        public String estimator;
+        Workload workload;
+
+        @Setup(Level.Trial)
+        public void setup() throws Exception {
+            Properties config = new Properties();
+            config.setProperty("result.estimator", estimator);
+            workload = Workload.load("GetFunction");
+            workload.setup(points, repeats, config);
+        }
+    }
+
+    /**
+     * Keerukusklassi valimine juba hinnatud tööaegade põhjal
+     */
+    @State(Scope.Thread)
+    public static class FindFunction {
+        @Param({"100", "1000", "10000", "100000"})
+        public int points;
+        @Param({"legacy", "aic"})
+        public String scoring;
+        Workload workload;
+
+        @Setup(Level.Trial)
+        public void setup() throws Exception {
+            Properties config = new Properties();
+            config.setProperty("complexity.scoring", scoring);
+            workload = Workload.load("FindFunction");
+            workload.setup(points, 1, config);
+        }
+    }
+
+    /**
+     * Kogu topeltkahendotsing sünteetilise tööaja mudeli vastu
+     */
+    @State(Scope.Thread)
+    public static class Search {
+        @Param({"doubling", "extrapolate"})
+        public String strategy;
+        Workload workload;
+
+        @Setup(Level.Trial)
+        public void setup() throws Exception {
+            Properties config = new Properties();
+            config.setProperty("search.strategy", strategy);
+            workload = Workload.load("Search");
+            workload.setup(0, 0, config);
+        }
+    }
+
+    @Benchmark
+    public Object addTime(AddTime state) throws Exception {
+        return state.workload.run();
+    }
+
+    @Benchmark
+    public Object getFunction(GetFunction state) throws Exception {
+        return state.workload.run();
+    }
+
+    @Benchmark
+    public Object findFunction(FindFunction state) throws Exception {
+        return state.workload.run();
+    }
+
+    @Benchmark
+    public Object findNext(Search state) throws Exception {
+        return state.workload.run();
+    }
+}
@@ -0,0 +1,79 @@
+package benchmark;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.Properties;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Mõõtmisvahendi enda kulu jõudlustestid tühja meetodi peal. Tulemus näitab, kui väikest tööaega saab mõõtmistega
+ * veel eristada.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(value = 1, jvmArgsAppend = "-Dorg.slf4j.simpleLogger.defaultLogLevel=warn")
+public class HarnessBenchmark {
+
+    /**
+     * Tühja meetodi väljakutse klassi Invoker kaudu, nagu mõõtmise ajal
+     */
+    @State(Scope.Thread)
+    public static class Invoke {
+        Workload workload;
+
+        @Setup(Level.Trial)
+        public void setup() throws Exception {
+            workload = Workload.load("Invoke");
+            workload.setup(0, 0, new Properties());
+        }
+    }
+
+    /**
+     * Tühja meetodi üks mõõtmine meetodiga MethodRunner.run, kaasa arvatud sisendi võtmine hoidlast, segavate
+     * tegurite jälgimine ning kella lugemine
+     */
+    @State(Scope.Thread)
+    public static class Measure {
+        @Param({"wall", "cpu"})
+        public String clock;
+        @Param({"0", "1"})
+        public String precise;
+        @Param({"0", "1"})
+        public String memory;
+        Workload workload;
+
+        @Setup(Level.Trial)
+        public void setup() throws Exception {
+            Properties config = new Properties();
+            config.setProperty("measure.clock", clock);
+            config.setProperty("measure.precise", precise);
+            config.setProperty("measure.warmup", "0");
+            config.setProperty("output.memory", memory);
+            workload = Workload.load("Measure");
+            workload.setup(0, 0, config);
+        }
+    }
+
+    @Benchmark
+    public Object invoke(Invoke state) throws Exception {
+        return state.workload.run();
+    }
+
+    @Benchmark
+    public Object measure(Measure state) throws Exception {
+        return state.workload.run();
+    }
+}
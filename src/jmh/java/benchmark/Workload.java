@@ -0,0 +1,36 @@
+package benchmark;
+
+import java.util.Properties;
+
+/**
+ * Liides Workload kirjeldab ühte mõõdetavat tööd. JMH ei luba jõudlusteste vaikepaketis, kuid vaikepaketi klassidele
+ * pääseb ligi ainult vaikepaketist. Seetõttu on tööd vaikepaketi klassis BenchmarkWorkloads ning jõudlustestid
+ * laevad need nime järgi.
+ */
+public interface Workload {
+    /**
+     * Valmistab töö ette. Seda aega ei mõõdeta
+     *
+     * @param points  erinevate sisendi suuruste arv
+     * @param repeats mõõtmiste arv iga sisendi suuruse kohta
+     * @param config  seadete ülekate (vt Config.setOverrides)
+     */
+    void setup(int points, int repeats, Properties config) throws Exception;
+
+    /**
+     * Teeb mõõdetava töö
+     *
+     * @return tulemus, mille JMH tarbib, et JIT ei saaks arvutust eemaldada
+     */
+    Object run() throws Exception;
+
+    /**
+     * Laeb vaikepaketi klassi BenchmarkWorkloads sisemise klassi
+     *
+     * @param name sisemise klassi nimi
+     * @return töö
+     */
+    static Workload load(String name) throws ReflectiveOperationException {
+        return (Workload) Class.forName("BenchmarkWorkloads$" + name).getDeclaredConstructor().newInstance();
+    }
+}
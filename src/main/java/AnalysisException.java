@@ -0,0 +1,23 @@
+/**
+ * Erind AnalysisException tähistab viga, mille tõttu ühe funktsiooni analüüsi ei saa jätkata. Teade väljastatakse
+ * Moodle'i kommentaarina.
+ */
+public class AnalysisException extends RuntimeException {
+    private static final long serialVersionUID = 1L;
+
+    /**
+     * @param message kasutajale näidatav veateade
+     */
+    public AnalysisException(String message) {
+        super(message);
+    }
+
+    /**
+     * Tagastab veateate Moodle'i kommentaari formaadis
+     *
+     * @return Moodle'i formaadis kommentaar
+     */
+    public String getComment() {
+        return "Comment :=>> " + getMessage();
+    }
+}
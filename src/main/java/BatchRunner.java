@@ -0,0 +1,100 @@
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+/**
+ * Klass BatchRunner analüüsib ühe JVM-i sees korraga mitut faili. Kompilaator ning DataGen.java klass on kõigi
+ * analüüside vahel jagatud.
+ */
+public class BatchRunner {
+    private static final Logger logger = LoggerFactory.getLogger(BatchRunner.class);
+
+    /**
+     * Analüüsib kõik etteantud kaustas või nimekirjas leiduvad failid seadega batch.threads määratud arvu lõimedega.
+     * Iga faili kohta väljastatakse selle analüüsi lõppedes üks rida
+     *
+     * @param location kaust või fail, mille igal real on ühe analüüsitava faili asukoht
+     */
+    public static void run(Path location) {
+        List<Path> submissions = findSubmissions(location);
+        int threads = Math.toIntExact(Config.valueAsLong("batch.threads", (long) Runtime.getRuntime().availableProcessors()));
+        logger.info("Analüüsitakse {} faili {} lõimega", submissions.size(), threads);
+        ExecutorService executor = Executors.newFixedThreadPool(threads);
+        for (Path submission : submissions) {
+            executor.submit(() -> System.out.println(submission + "\t" + analyse(submission)));
+        }
+        executor.shutdown();
+        try {
+            executor.awaitTermination(Long.MAX_VALUE, TimeUnit.MILLISECONDS);
+        } catch (InterruptedException e) {
+            executor.shutdownNow();
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    /**
+     * Leiab analüüsitavad failid. Kausta korral kasutatakse kõiki .java ning .py faile peale sisendi genereerijate,
+     * nimekirja korral on suhtelised teed nimekirja kausta suhtes
+     *
+     * @param location kaust või nimekirja fail
+     * @return analüüsitavate failide asukohad
+     */
+    private static List<Path> findSubmissions(Path location) {
+        try {
+            if (Files.isDirectory(location)) {
+                try (Stream<Path> files = Files.list(location)) {
+                    return files.filter(BatchRunner::isSubmission).sorted().collect(Collectors.toList());
+                }
+            }
+            Path base = location.toAbsolutePath().getParent();
+            return Files.readAllLines(location).stream()
+                    .map(String::trim)
+                    .filter(line -> !line.isEmpty() && !line.startsWith("#"))
+                    .map(base::resolve)
+                    .collect(Collectors.toList());
+        } catch (IOException e) {
+            throw new IllegalArgumentException("Analüüsitavaid faile ei õnnestunud lugeda: " + location, e);
+        }
+    }
+
+    private static boolean isSubmission(Path file) {
+        String name = file.getFileName().toString();
+        if (name.equals("DataGen.java") || name.equals("datagen.py") || name.startsWith("python_runner")) return false;
+        return name.endsWith(".java") || name.endsWith(".py");
+    }
+
+    /**
+     * Analüüsib ühte faili. Kasutatakse ka klassis GradingServer
+     *
+     * @param submission analüüsitava faili asukoht
+     * @return Moodle'i formaadis kommentaar
+     */
+    static String analyse(Path submission) {
+        try {
+            FunctionExecutor executor;
+            if (submission.getFileName().toString().endsWith(".java")) {
+                executor = new JavaExecutor(submission);
+            } else {
+                executor = new PythonExecutor(submission, submission.toAbsolutePath().getParent().toString());
+            }
+            String comment = executor.analyse().getFunction();
+            if (Config.valueAsLong("output.memory", 0L) == 1 && !executor.getMemoryResults().isEmpty())
+                comment += "\t" + executor.getMemoryResults().getFunction();
+            return comment;
+        } catch (AnalysisException e) {
+            return e.getComment();
+        } catch (RuntimeException e) {
+            logger.error("Faili {} analüüs ebaõnnestus", submission, e);
+            return "Comment :=>> Analüüs ebaõnnestus";
+        }
+    }
+}
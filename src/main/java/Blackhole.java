@@ -0,0 +1,19 @@
+/**
+ * Klass Blackhole võtab vastu mõõdetava funktsiooni tulemused, et JIT kompilaator ei saaks kasutamata tulemusega
+ * arvutust eemaldada.
+ */
+public final class Blackhole {
+    private static volatile Object sink;
+
+    private Blackhole() {
+    }
+
+    /**
+     * Salvestab väärtuse volatile välja, mistõttu peab väärtus olema tegelikult välja arvutatud
+     *
+     * @param value funktsiooni tulemus
+     */
+    public static void consume(Object value) {
+        sink = value;
+    }
+}
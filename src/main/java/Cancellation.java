@@ -0,0 +1,38 @@
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Klass Cancellation sisaldab meetodit, mille väljakutse lisatakse instrumenteeritud klasside meetodite algusesse ning
+ * tagasisuunaliste hüpete ette. Kui ükski lõim pole katkestatud, on kontrolliks üks volatile lugemine.
+ */
+public final class Cancellation {
+    static final AtomicInteger pending = new AtomicInteger();
+
+    private Cancellation() {
+    }
+
+    /**
+     * Viskab erindi Cancelled, kui praegune lõim on katkestatud ProbeThread
+     */
+    public static void check() {
+        if (pending.get() != 0) checkThread();
+    }
+
+    private static void checkThread() {
+        Thread thread = Thread.currentThread();
+        if (thread instanceof ProbeThread && ((ProbeThread) thread).isCancelled()) {
+            throw new Cancelled();
+        }
+    }
+
+    /**
+     * Katkestatud mõõtmise erind. Klass laiendab klassi Error, et vaadeldava programmi catch (Exception e) seda kinni
+     * ei püüaks
+     */
+    public static final class Cancelled extends Error {
+        private static final long serialVersionUID = 1L;
+
+        private Cancelled() {
+            super("Mõõtmine katkestati", null, false, false);
+        }
+    }
+}
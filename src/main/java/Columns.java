@@ -0,0 +1,107 @@
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.DoubleUnaryOperator;
+
+/**
+ * Klass Columns hoiab mõõtmisandmeid koos nende teisendustega. Teisendused arvutatakse üks kord ning neid jagavad kõik
+ * regressioonid.
+ */
+public final class Columns {
+    /**
+     * Sisendi suurused
+     */
+    public final double[] x;
+    /**
+     * Tööajad
+     */
+    public final double[] y;
+    /**
+     * log(n)
+     */
+    public final double[] logX;
+    /**
+     * n * log(n)
+     */
+    public final double[] xLogX;
+    /**
+     * n^2
+     */
+    public final double[] x2;
+    /**
+     * n^3
+     */
+    public final double[] x3;
+    /**
+     * log(tööaeg)
+     */
+    public final double[] logY;
+    /**
+     * tööaeg / log(tööaeg)
+     */
+    public final double[] yOverLogY;
+    /**
+     * tööaeg / log(n)
+     */
+    public final double[] yOverLogX;
+    /**
+     * Millised tööajad on paremalt tsenseeritud ehk on teada vaid nende alumine piir, null kui selliseid pole
+     */
+    public final boolean[] censored;
+    private final Map<String, double[]> cache = new ConcurrentHashMap<>();
+
+    /**
+     * @param x        sisendi suuruste järjend
+     * @param y        tööaegade järjend
+     * @param censored millised tööajad on vaid alumised piirid, null kui kõik tööajad on mõõdetud
+     */
+    public Columns(double[] x, double[] y, boolean[] censored) {
+        if (x.length != y.length) throw new IllegalArgumentException("X and Y have different length");
+        if (censored != null && censored.length != x.length)
+            throw new IllegalArgumentException("X and censored have different length");
+        int length = x.length;
+        this.x = x;
+        this.y = y;
+        this.censored = censored;
+        logX = new double[length];
+        xLogX = new double[length];
+        x2 = new double[length];
+        x3 = new double[length];
+        logY = new double[length];
+        yOverLogY = new double[length];
+        yOverLogX = new double[length];
+        for (int i = 0; i < length; i++) {
+            logX[i] = Math.log(x[i]);
+            xLogX[i] = x[i] * logX[i];
+            x2[i] = x[i] * x[i];
+            x3[i] = x2[i] * x[i];
+            logY[i] = Math.log(y[i]);
+            yOverLogY[i] = y[i] / logY[i];
+            yOverLogX[i] = y[i] / logX[i];
+        }
+    }
+
+    /**
+     * @return punktide arv
+     */
+    public int size() {
+        return x.length;
+    }
+
+    /**
+     * Tagastab sisendi suurustele rakendatud teisenduse. Teisendus arvutatakse esimesel küsimisel ning jäetakse nime
+     * järgi meelde, et mitu mudelit saaksid seda jagada
+     *
+     * @param name     teisenduse nimi
+     * @param function teisendus
+     * @return teisendatud sisendi suurused
+     */
+    public double[] column(String name, DoubleUnaryOperator function) {
+        return cache.computeIfAbsent(name, key -> {
+            double[] column = new double[x.length];
+            for (int i = 0; i < x.length; i++) {
+                column[i] = function.applyAsDouble(x[i]);
+            }
+            return column;
+        });
+    }
+}
@@ -1,14 +1,7 @@
-import org.apache.commons.math3.exception.TooManyIterationsException;
-import org.apache.commons.math3.fitting.PolynomialCurveFitter;
-import org.apache.commons.math3.fitting.WeightedObservedPoint;
-import org.apache.commons.math3.fitting.WeightedObservedPoints;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
 import java.util.Arrays;
-import java.util.List;
-import java.util.function.DoubleUnaryOperator;
-import java.util.stream.Collectors;
 
 /**
  * Klassi ComplexityFinder eesmärk on leida mõõdetud sisendisuuruste ning tööaegade alusel keerukusfunktsioon.
@@ -19,33 +12,63 @@ public class ComplexityFinder {
     private static boolean verbose = Config.valueAsLong("output.predictions", 0L) != 0;
 
     /**
-     * Otsustab regressiooniparameetrite alusel, milline ajaline keerukus on kõige tõenäolisem
+     * Loeb seadest complexity.scoring keerukuse valimise viisi. Tundmatu väärtuse korral visatakse AnalysisException
+     *
+     * @return informatsioonikriteerium või null, kui kasutatakse vaikimisi meetodit (legacy)
+     */
+    public static ComplexityModels.Criterion criterion() {
+        String scoring = Config.valueAsString("complexity.scoring", "legacy");
+        return scoring.equals("legacy") ? null : ComplexityModels.Criterion.parse(scoring);
+    }
+
+    /**
+     * Otsustab regressiooniparameetrite alusel, milline ajaline keerukus on kõige tõenäolisem. Seadega
+     * complexity.scoring=aic või bic valitakse klassi ComplexityModels registreeritud mudelite seast
+     * informatsioonikriteeriumi järgi parim
      *
      * @param x sisendi suuruste järjend
      * @param y tööaegade järjend
      * @return leitud keerukusklass
      */
     public static String findFunction(double[] x, double[] y) {
+        return findFunction(x, y, null);
+    }
+
+    /**
+     * Otsustab regressiooniparameetrite alusel, milline ajaline keerukus on kõige tõenäolisem. Tsenseeritud punktide
+     * tööaeg on ajapiirang, mille jooksul käivitus ei lõppenud. Neid kasutatakse regressioonis alumise piirina
+     *
+     * @param x        sisendi suuruste järjend
+     * @param y        tööaegade järjend
+     * @param censored millised tööajad on vaid alumised piirid, null kui kõik tööajad on mõõdetud
+     * @return leitud keerukusklass
+     */
+    public static String findFunction(double[] x, double[] y, boolean[] censored) {
         if (x.length != y.length) throw new IllegalArgumentException("X and Y have different length");
         if (x.length < 10) {
             return "";
         }
+        Columns data = new Columns(x, y, censored);
+        ComplexityModels.Criterion criterion = criterion();
+        if (criterion != null) {
+            return ComplexityModels.best(data, criterion);
+        }
         if (verbose) {
             logger.debug("Logaritmi teisendus");
         }
-        double[] logCoeff = check(x, y, Math::log, i -> i, 1); // log n
+        double[] logCoeff = check(data.logX, data.y, data.censored, data.logX); // log n
         if (verbose)
             logger.debug("Linearitmilise seose teisendus");
-        double[] nlogCoeff = check(x, y, i -> i, i -> i / Math.log(i), 1); // n log n
+        double[] nlogCoeff = check(data.x, data.yOverLogY, data.censored, data.x); // n log n
         if (verbose)
             logger.debug("Alternatiiven linearitmiline teisendus");
-        double[] nlogCoeff2 = nLogcheck(x, y); // n log n, alternate form
+        double[] nlogCoeff2 = nLogcheck(data); // n log n, alternate form
         if (verbose)
             logger.debug("Polünoom, ilma teisenduset");
-        double[] polyCoeff = check(x, y, i -> i, i -> i, 3); // n, n^2, n^3
+        double[] polyCoeff = check(data.x, data.y, data.censored, data.x, data.x2, data.x3); // n, n^2, n^3
         if (verbose)
             logger.debug("Eksponentfunktsiooni teisendus");
-        double[] expCoeff = check(x, y, i -> i, Math::log, 1); // 2^n
+        double[] expCoeff = check(data.x, data.logY, data.censored, data.x); // 2^n
         double logSum = Arrays.stream(logCoeff).map(Math::abs).sum();
         double nlogSum = Arrays.stream(nlogCoeff).map(Math::abs).sum();
         double nlogSum2 = Arrays.stream(nlogCoeff2).map(Math::abs).sum();
@@ -84,74 +107,64 @@ public class ComplexityFinder {
     }
 
     /**
-     * Rakendab teisendusi xMap ning yMap sisendandmete peal. Kasutab vähimruutude meetodit et leida polünomiaalse
-     * regressiooni parameetreid
+     * Kasutab vähimruutude meetodit et leida teisendatud andmetel regressiooni parameetreid. Kasutatakse ainult
+     * punkte, mis järgnevad viimasele punktile, kus teisendatud sisendi suurus või tööaeg on väiksem kui 1. Kõik
+     * kasutatud teisendused on tööaja suhtes kasvavad, mistõttu jäävad tsenseeritud tööajad ka pärast teisendust
+     * alumisteks piirideks
      *
-     * @param x      sisendi suuruste järjend
-     * @param y      tööaegade järjend
-     * @param xMap   teisendus, mida rakendada igale sisendi suurusele
-     * @param yMap   teisendus, mida rakendada igale tööajale
-     * @param degree polünomiaalse regressiooni aste, mis lineaarregressioni korral on 1
+     * @param X        teisendatud sisendi suurused
+     * @param Y        teisendatud tööajad
+     * @param censored millised tööajad on vaid alumised piirid, null kui kõik tööajad on mõõdetud
+     * @param columns  regressiooni tunnused, lineaarregressiooni korral ainult X
      * @return leitud regressiooniparameetrid
      */
-    private static double[] check(double[] x, double[] y, DoubleUnaryOperator xMap, DoubleUnaryOperator yMap, int degree) {
-        List<Double> X = Arrays.stream(x).map(xMap).boxed().collect(Collectors.toList());
-        List<Double> Y = Arrays.stream(y).map(yMap).boxed().collect(Collectors.toList());
-        WeightedObservedPoints points = new WeightedObservedPoints();
-        for (int i = 0; i < X.size(); i++) {
-            if (X.get(i) < 1 || Y.get(i) < 1) {
-                points.clear();
-                continue;
+    private static double[] check(double[] X, double[] Y, boolean[] censored, double[]... columns) {
+        int from = 0;
+        for (int i = 0; i < X.length; i++) {
+            if (X[i] < 1 || Y[i] < 1) {
+                from = i + 1;
             }
-            points.add(X.get(i), Y.get(i));
         }
-        PolynomialCurveFitter fitter = PolynomialCurveFitter.create(degree).withMaxIterations(10000);
-        try {
-            double[] fit = fitter.fit(points.toList());
-            double sq = 0;
-            for (WeightedObservedPoint point : points.toList()) {
-                double dy = fit[0] + point.getX() * fit[1];
-                if (fit.length > 2) dy += point.getX() * point.getX() * fit[2];
-                if (fit.length > 3) dy += point.getX() * point.getX() * point.getX() * fit[3];
-                if (verbose)
-                    logger.debug("Ennustasin {}, tegelik väärtus on {}", dy, point.getY());
-                sq += Math.pow(dy - point.getY(), 2);
-            }
+        LeastSquares.Fit fit = LeastSquares.fit(Y, censored, from, columns);
+        if (fit == null) {
             if (verbose)
-                logger.debug("Hälvete ruutude summa: {}", sq);
-            return fit;
-        } catch (TooManyIterationsException e) {
-            if (verbose)
-                logger.warn("Regressioon ei õnnestunud iteratsioonide limiidi sees");
-            return new double[]{Double.MAX_VALUE};
+                logger.warn("Regressioon ei õnnestunud");
+            double[] failed = new double[columns.length + 1];
+            Arrays.fill(failed, Double.MAX_VALUE);
+            return failed;
         }
+        if (verbose) {
+            for (int i = from; i < Y.length; i++) {
+                double dy = fit.coefficients[0];
+                for (int j = 0; j < columns.length; j++) {
+                    dy += fit.coefficients[j + 1] * columns[j][i];
+                }
+                logger.debug("Ennustasin {}, tegelik väärtus on {}", dy, Y[i]);
+            }
+            logger.debug("Hälvete ruutude summa: {}", fit.residualSumOfSquares);
+        }
+        return fit.coefficients;
     }
 
     /**
      * Rakendab andmetel teisendust, kus tööaeg jagatakse sisendi suuruse logaritmiga. Kasutab vähimruutude meetodit et
      * leida polünomiaalse regressiooni parameetreid
      *
-     * @param x sisendi suuruste järjend
-     * @param y tööaegade järjend
+     * @param data mõõtmisandmed koos teisendustega
      * @return leitud regressiooniparameetrid
      */
-    private static double[] nLogcheck(double[] x, double[] y) {
-        List<Double> X = Arrays.stream(x).boxed().collect(Collectors.toList());
-        List<Double> Y = Arrays.stream(y).boxed().collect(Collectors.toList());
-        WeightedObservedPoints points = new WeightedObservedPoints();
-        for (int i = 0; i < X.size(); i++) {
-            if (x[i] == 0 || y[i] == 0) {
-                points.clear();
-                continue;
+    private static double[] nLogcheck(Columns data) {
+        int from = 0;
+        for (int i = 0; i < data.size(); i++) {
+            if (data.x[i] == 0 || data.y[i] == 0) {
+                from = i + 1;
             }
-            points.add(X.get(i), Y.get(i) / Math.log(X.get(i)));
         }
-        PolynomialCurveFitter fitter = PolynomialCurveFitter.create(1).withMaxIterations(10000);
-        try {
-            return fitter.fit(points.toList());
-        } catch (TooManyIterationsException e) {
+        LeastSquares.Fit fit = LeastSquares.fit(data.yOverLogX, data.censored, from, data.x);
+        if (fit == null) {
             return new double[]{Double.POSITIVE_INFINITY};
         }
+        return fit.coefficients;
     }
 
 }
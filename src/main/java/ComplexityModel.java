@@ -0,0 +1,44 @@
+import java.util.function.DoubleUnaryOperator;
+
+/**
+ * Liides ComplexityModel kirjeldab keerukusklassi, mille sobivust mõõtmisandmetega hinnatakse seosega
+ * aeg = a + b * f(n). Täiendavaid mudeleid saab lisada java.util.ServiceLoader kaudu, kirjeldades need failis
+ * META-INF/services/ComplexityModel.
+ */
+public interface ComplexityModel {
+    /**
+     * Tagastab keerukusklassi nime, mida väljastatakse kujul O(nimi)
+     *
+     * @return keerukusklassi nimi
+     */
+    String name();
+
+    /**
+     * Arvutab iga punkti jaoks funktsiooni f(n) väärtuse. Konstantse mudeli korral tagastatakse null
+     *
+     * @param data mõõtmisandmed koos jagatud teisendustega
+     * @return f(n) väärtused või null
+     */
+    double[] column(Columns data);
+
+    /**
+     * Koostab mudeli, mille funktsiooni väärtused arvutatakse ühe korra ning jäetakse nime järgi meelde
+     *
+     * @param name     keerukusklassi nimi
+     * @param function funktsioon f(n)
+     * @return mudel
+     */
+    static ComplexityModel of(String name, DoubleUnaryOperator function) {
+        return new ComplexityModel() {
+            @Override
+            public String name() {
+                return name;
+            }
+
+            @Override
+            public double[] column(Columns data) {
+                return data.column(name, function);
+            }
+        };
+    }
+}
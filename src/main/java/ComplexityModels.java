@@ -0,0 +1,160 @@
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.*;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinWorkerThread;
+
+/**
+ * Klass ComplexityModels sisaldab keerukusmudelite registrit ning nende hindamist informatsioonikriteeriumi abil.
+ * Kõik mudelid sobitatakse paralleelselt oma ForkJoinPool lõimekogumi peal, mille lõimed analüüsi seadete ülekatet
+ * ei päri (vt Config.sharedThreads).
+ */
+public final class ComplexityModels {
+    private static final Logger logger = LoggerFactory.getLogger(ComplexityModels.class);
+    private static final ForkJoinPool pool = new ForkJoinPool(Runtime.getRuntime().availableProcessors(),
+            p -> new ForkJoinWorkerThread(p) {
+                @Override
+                protected void onStart() {
+                    super.onStart();
+                    Config.setOverrides(null);
+                }
+            }, null, false);
+    private static List<ComplexityModel> models;
+
+    private ComplexityModels() {
+    }
+
+    /**
+     * Informatsioonikriteerium, mille järgi mudeleid võrreldakse
+     */
+    public enum Criterion {
+        AIC, BIC;
+
+        /**
+         * Leiab seade väärtusele vastava kriteeriumi
+         *
+         * @param value "aic" või "bic"
+         * @return kriteerium
+         */
+        public static Criterion parse(String value) {
+            for (Criterion criterion : values()) {
+                if (criterion.name().equalsIgnoreCase(value.trim())) return criterion;
+            }
+            throw new AnalysisException("Seadistuse probleem: complexity.scoring peab olema 'legacy', 'aic' või 'bic', aga on '" + value + "'");
+        }
+
+        /**
+         * @param parameters mudeli parameetrite arv
+         * @param points     punktide arv
+         * @return karistus parameetrite arvu eest
+         */
+        private double penalty(int parameters, int points) {
+            return this == AIC ? 2.0 * parameters : parameters * Math.log(points);
+        }
+    }
+
+    /**
+     * Tagastab registreeritud mudelid. Lisaks sisseehitatud mudelitele kasutatakse seadega complexity.powers antud
+     * astmeid kujul n^k ning ServiceLoader abil leitud mudeleid
+     *
+     * @return registreeritud mudelid
+     */
+    public static synchronized List<ComplexityModel> registered() {
+        if (models != null) return models;
+        List<ComplexityModel> list = new ArrayList<>();
+        list.add(new ComplexityModel() {
+            @Override
+            public String name() {
+                return "1";
+            }
+
+            @Override
+            public double[] column(Columns data) {
+                return null;
+            }
+        });
+        list.add(ComplexityModel.of("log(n)", Math::log));
+        list.add(ComplexityModel.of("sqrt(n)", Math::sqrt));
+        list.add(ComplexityModel.of("n", n -> n));
+        list.add(ComplexityModel.of("n*log(n)", n -> n * Math.log(n)));
+        list.add(ComplexityModel.of("n*log(n)^2", n -> n * Math.log(n) * Math.log(n)));
+        for (String power : Config.valueAsString("complexity.powers", "2,3,4").split(",")) {
+            double k = Double.parseDouble(power.trim());
+            String name = k == Math.rint(k) ? "n^" + (long) k : "n^" + k;
+            list.add(ComplexityModel.of(name, n -> Math.pow(n, k)));
+        }
+        list.add(ComplexityModel.of("2^n", n -> Math.pow(2, n)));
+        list.add(ComplexityModel.of("n!", ComplexityModels::factorial));
+        for (ComplexityModel model : ServiceLoader.load(ComplexityModel.class)) {
+            list.add(model);
+        }
+        models = Collections.unmodifiableList(list);
+        return models;
+    }
+
+    /**
+     * Leiab mudeli, mille informatsioonikriteeriumi väärtus on kõige väiksem
+     *
+     * @param data      mõõtmisandmed
+     * @param criterion informatsioonikriteerium
+     * @return parima mudeli nimi või tühi sõne, kui ükski mudel ei sobinud
+     */
+    public static String best(Columns data, Criterion criterion) {
+        int from = 0;
+        for (int i = 0; i < data.size(); i++) {
+            if (data.x[i] < 1) from = i + 1;
+        }
+        final int start = from;
+        boolean print = Config.valueAsLong("output.regression", 0L) != 0;
+        List<ComplexityModel> candidates = registered();
+        return pool.submit(() -> candidates.parallelStream()
+                .map(model -> new Score(model, data, start, criterion))
+                .peek(score -> {
+                    if (print) logger.info("{}: kordajad {}, kriteerium {}", score.model.name(),
+                            score.fit == null ? "-" : Arrays.toString(score.fit.coefficients), score.value);
+                })
+                .filter(score -> Double.isFinite(score.value))
+                .min(Comparator.comparingDouble(score -> score.value))
+                .map(score -> score.model.name())
+                .orElse("")).join();
+    }
+
+    /**
+     * Arvutab n! väärtuse, mittetäisarvulise n korral ümardatakse n alla
+     *
+     * @param n argument
+     * @return n! või lõpmatus, kui väärtus on liiga suur
+     */
+    private static double factorial(double n) {
+        double result = 1;
+        for (int i = 2; i <= n && Double.isFinite(result); i++) {
+            result *= i;
+        }
+        return result;
+    }
+
+    /**
+     * Ühe mudeli sobitamise tulemus
+     */
+    private static final class Score {
+        private final ComplexityModel model;
+        private final LeastSquares.Fit fit;
+        private final double value;
+
+        private Score(ComplexityModel model, Columns data, int from, Criterion criterion) {
+            this.model = model;
+            double[] column = model.column(data);
+            fit = column == null ? LeastSquares.fit(data.y, data.censored, from) : LeastSquares.fit(data.y, data.censored, from, column);
+            if (fit == null || fit.coefficients.length > 1 && fit.coefficients[1] < 0) {
+                // kahanev seos ei saa olla keerukusfunktsioon
+                value = Double.POSITIVE_INFINITY;
+                return;
+            }
+            int n = fit.count;
+            int k = fit.coefficients.length;
+            double rss = Math.max(fit.residualSumOfSquares, 1e-12 * n);
+            value = n * Math.log(rss / n) + criterion.penalty(k, n);
+        }
+    }
+}
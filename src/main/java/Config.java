@@ -5,16 +5,23 @@ import java.io.IOException;
 import java.io.InputStream;
 import java.nio.file.Files;
 import java.nio.file.Paths;
-import java.util.HashMap;
+import java.util.HashSet;
 import java.util.Map;
 import java.util.Properties;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ThreadFactory;
 
 /**
- * Klass Config sisaldab seadete haldamise funktsionaalsust.
+ * Klass Config sisaldab seadete haldamise funktsionaalsust. Lõimele saab määrata seadete ülekatte, mis kehtib ka selle
+ * loodud lõimedes ning mille väärtused on failis config.properties olevatest ülimad (vt GradingServer). Jagatud
+ * lõimekogumite lõimed ülekatet ei päri (vt sharedThreads), eraldi JVM-is mõõtmisel saadetakse ülekate töötajale.
  */
 public class Config {
     private static final Logger logger = LoggerFactory.getLogger(Config.class);
-    private static final Map<String, Properties> cache = new HashMap<>();
+    // pakktöötluses loevad mitu analüüsi lõime seadete faile korraga
+    private static final Map<String, Properties> cache = new ConcurrentHashMap<>();
+    private static final InheritableThreadLocal<Properties> overrides = new InheritableThreadLocal<>();
 
     /**
      * Loeb sisse ning salvestab mällu etteantud nimega seadete faili
@@ -41,16 +48,67 @@ public class Config {
      * @return seadete fail
      */
     public static Properties get(String fileName) {
-        return cache.computeIfAbsent(fileName, Config::loadConfig);
+        Properties prop = cache.get(fileName);
+        return prop != null ? prop : loadConfig(fileName);
     }
 
     /**
-     * Otsib peamisest seadete failist config.properties küsitud võtme väärtust
+     * Määrab praegusele lõimele ning selle edaspidi loodavatele lõimedele seadete ülekatte
+     *
+     * @param properties ülekaetavad seaded, null eemaldab ülekatte
+     */
+    public static void setOverrides(Properties properties) {
+        if (properties == null) overrides.remove();
+        else overrides.set(properties);
+    }
+
+    /**
+     * @return praeguse lõime seadete ülekatte koopia, tühi kui ülekatet pole
+     */
+    public static Properties overrides() {
+        Properties copy = new Properties();
+        Properties local = overrides.get();
+        if (local != null) local.stringPropertyNames().forEach(name -> copy.setProperty(name, local.getProperty(name)));
+        return copy;
+    }
+
+    /**
+     * Koostab lõimede tehase lõimekogumile, mida kasutavad mitu analüüsi. Analüüsi ajal loodud lõim pärib selle
+     * analüüsi seadete ülekatte, seega eemaldatakse ülekate lõime alguses
+     *
+     * @param name lõimede nimi
+     * @return deemonlõimede tehas
+     */
+    public static ThreadFactory sharedThreads(String name) {
+        return r -> {
+            Thread thread = new Thread(() -> {
+                overrides.remove();
+                r.run();
+            }, name);
+            thread.setDaemon(true);
+            return thread;
+        };
+    }
+
+    /**
+     * @return kõigi kehtivate seadete nimed, ülekate kaasa arvatud
+     */
+    public static Set<String> names() {
+        Set<String> names = new HashSet<>(get("config.properties").stringPropertyNames());
+        Properties local = overrides.get();
+        if (local != null) names.addAll(local.stringPropertyNames());
+        return names;
+    }
+
+    /**
+     * Otsib küsitud võtme väärtust lõime seadete ülekattest ning seejärel peamisest seadete failist config.properties
      *
      * @param key seade nimi
      * @return seade väärtus
      */
     public static String value(String key) {
+        Properties local = overrides.get();
+        if (local != null && local.getProperty(key) != null) return local.getProperty(key);
         return get("config.properties").getProperty(key);
     }
 
@@ -1,13 +1,33 @@
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.ByteArrayOutputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.lang.reflect.InvocationTargetException;
+import java.nio.file.Files;
 import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
 
 /**
  * Klass FunctionExecutor on abstraktne klass, mida laiendavad klassid JavaExecutor ning PythonExecutor.
  * Nende ühine funktsionaalsus on funktsiooni käivitamine ning nende tööaegade alusel
- * tulemuste struktuuri ResultHolder koostamine.
+ * tulemuste struktuuri ResultHolder koostamine. Seadega output.memory=1 kogutakse samade käivituste kohta ka
+ * mälukasutus eraldi struktuuri.
  */
 public abstract class FunctionExecutor {
+    private static final Logger logger = LoggerFactory.getLogger(FunctionExecutor.class);
     protected final ResultHolder results = new ResultHolder();
+    protected final ResultHolder memory = new ResultHolder("Oletatav mälukeerukus",
+            Config.valueAsDouble("memory.tolerance", 64.0));
     protected final Path source;
+    protected Journal journal;
 
     /**
      * Salvestab sisendfaili teekonna klassivälja
@@ -27,4 +47,149 @@ public abstract class FunctionExecutor {
      * @return kogutud andmed
      */
     public abstract ResultHolder start();
+
+    /**
+     * Käivitab seadega source.tests määratud kaustas olevad testjuhud 1..N, kus N on viimane järjestikune testjuht,
+     * mille fail metaN.txt on olemas. Seadega manual.parallel käivitatakse kuni nii mitu testjuhtu korraga
+     *
+     * @param test ühe testjuhu käivitaja, mis saab argumendiks testjuhu järjekorranumbri
+     */
+    protected void runTestCases(TestCase test) throws IOException, InvocationTargetException {
+        String testLocation = Config.value("source.tests");
+        int count = 0;
+        while (Files.exists(Paths.get(testLocation, String.format("meta%d.txt", count + 1)))) count++;
+        int width = Math.toIntExact(Config.valueAsLong("manual.parallel", 1L));
+        if (width <= 1) {
+            for (int i = 1; i <= count; i++) {
+                test.run(Integer.toString(i));
+            }
+            return;
+        }
+        ExecutorService pool = Executors.newFixedThreadPool(width);
+        try {
+            List<Future<Void>> futures = new ArrayList<>();
+            for (int i = 1; i <= count; i++) {
+                String testCase = Integer.toString(i);
+                futures.add(pool.submit(() -> {
+                    test.run(testCase);
+                    return null;
+                }));
+            }
+            for (Future<Void> future : futures) {
+                future.get();
+            }
+        } catch (ExecutionException e) {
+            Throwable cause = e.getCause();
+            if (cause instanceof IOException) throw (IOException) cause;
+            if (cause instanceof InvocationTargetException) throw (InvocationTargetException) cause;
+            if (cause instanceof RuntimeException) throw (RuntimeException) cause;
+            if (cause instanceof Error) throw (Error) cause;
+            throw new IllegalStateException(cause);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new AnalysisException("Analüüs katkestati");
+        } finally {
+            pool.shutdownNow();
+        }
+    }
+
+    /**
+     * Kirjutab väljundisse testjuhu tulemuse
+     *
+     * @param testCase testjuhu järjekorranumber
+     * @param verifier testjuhu väljundi võrdleja
+     */
+    protected void logVerdict(String testCase, OutputVerifier verifier) {
+        if (verifier.finish()) {
+            logger.info("Testjuht {}: programm väljastas õige vastuse", testCase);
+        } else {
+            logger.error("Testjuht {}: programmi väljund erineb, {}", testCase, verifier.describe());
+        }
+    }
+
+    /**
+     * Ühe testjuhu käivitaja
+     */
+    @FunctionalInterface
+    protected interface TestCase {
+        void run(String testCase) throws IOException, InvocationTargetException;
+    }
+
+    /**
+     * @return sisendi genereerija faili asukoht
+     */
+    protected abstract Path dataGenSource();
+
+    /**
+     * @return vaadeldavat programmi käivitava keskkonna versioon
+     */
+    protected abstract String runtimeVersion();
+
+    /**
+     * Avab seadega job.id määratud töö päeviku (vt Journal). Päeviku võtmeks on sama võti, mida kasutab vahemälu
+     *
+     * @return päevik või null, kui töö tunnus pole määratud või päevikut ei õnnestunud avada
+     */
+    protected Journal openJournal() {
+        String id = Config.value("job.id");
+        if (id == null || id.isEmpty()) return null;
+        try {
+            return Journal.open(id, ResultCache.key(source, dataGenSource(), runtimeVersion()), results, memory);
+        } catch (IOException e) {
+            logger.warn("Töö päeviku võtme leidmine ebaõnnestus: {}", String.valueOf(e));
+            return null;
+        }
+    }
+
+    /**
+     * Leiab funktsiooni ajalise keerukuse määramise jaoks vajalikud andmed. Kui vahemälu on sisse lülitatud (vt
+     * ResultCache) ning sama sisuga esitust samade seadetega on juba mõõdetud, taastatakse andmed vahemälust. Vigased
+     * keerukuse leidmise seaded tuvastatakse enne mõõtmist
+     *
+     * @return kogutud andmed
+     */
+    public ResultHolder analyse() {
+        ComplexityFinder.criterion();
+        ResultCache cache = ResultCache.shared();
+        if (cache == null || !Config.valueAsString("mode", "auto").equals("auto")) return start();
+        String key;
+        try {
+            key = ResultCache.key(source, dataGenSource(), runtimeVersion());
+        } catch (IOException e) {
+            logger.warn("Vahemälu võtme leidmine ebaõnnestus: {}", String.valueOf(e));
+            return start();
+        }
+        byte[] cached = cache.get(key);
+        if (cached != null) {
+            try {
+                ResultHolder.readFrom(cached, results, memory);
+                logger.info("Faili {} tulemused leiti vahemälust", source);
+                return results;
+            } catch (IOException e) {
+                logger.warn("Vahemälust loetud andmed on vigased: {}", String.valueOf(e));
+            }
+        }
+        start();
+        if (results.isEmpty()) return results;
+        try {
+            ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+            DataOutputStream out = new DataOutputStream(bytes);
+            results.writeTo(out);
+            memory.writeTo(out);
+            out.flush();
+            cache.put(key, bytes.toByteArray());
+        } catch (IOException e) {
+            logger.warn("Vahemällu kirjutamine ebaõnnestus: {}", String.valueOf(e));
+        }
+        return results;
+    }
+
+    /**
+     * Tagastab käivituste mälukasutuse, mis on kogutud meetodi start jooksul
+     *
+     * @return mälukasutus baitides, tühi kui mälu ei mõõdetud
+     */
+    public ResultHolder getMemoryResults() {
+        return memory;
+    }
 }
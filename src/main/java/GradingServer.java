@@ -0,0 +1,330 @@
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+import java.io.UnsupportedEncodingException;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.net.URLDecoder;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Properties;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.regex.Pattern;
+import java.util.stream.Stream;
+
+/**
+ * Klass GradingServer on püsiv hindamisserver, mis võtab analüüse vastu HTTP kaudu ainult kohalikult aadressilt.
+ * Kompilaator, kompileeritud sisendi genereerijad ning JIT-kompileeritud mõõtmiskood jäävad analüüside vahel mällu.
+ * <ul>
+ * <li>POST /jobs?file=&lt;failinimi&gt;&amp;&lt;seade&gt;=&lt;väärtus&gt;... lisab järjekorda analüüsi, mille
+ * lähtekood on päringu sisus. Ülejäänud parameetrid kaetakse analüüsi ajaks failis config.properties olevate seadete
+ * peale. Muuta saab ainult analüüsi enda seadeid (vt OVERRIDABLE), teised seaded lükatakse tagasi. Vastuseks on
+ * analüüsi tunnus</li>
+ * <li>GET /jobs/&lt;tunnus&gt;[?wait=&lt;ms&gt;] tagastab analüüsi oleku (queued, running või done) ning lõppenud
+ * analüüsi korral Moodle'i formaadis kommentaari. Parameetriga wait oodatakse analüüsi lõppu kuni antud aja</li>
+ * </ul>
+ * Korraga tehakse server.threads analüüsi, iga analüüs katkestatakse server.job.timeout millisekundi pärast. Alles
+ * hoitakse kuni server.jobs.retain analüüsi olekut, ülearused lõppenud analüüsid eemaldatakse vanimast alates.
+ * Ajapiirangu ületanud käivitust ei lõpetata protsessi lõpuga nagu ühe faili analüüsil, seega kui mõõtmised ei toimu
+ * eraldi JVM-ides (worker.fork=1), lisatakse kõigi analüüside klassidesse katkestuse kontrollid (instrument.cancel=1).
+ */
+public class GradingServer {
+    private static final Logger logger = LoggerFactory.getLogger(GradingServer.class);
+    private static final Pattern FILE_NAME = Pattern.compile("[A-Za-z_][A-Za-z0-9_]*\\.(java|py)");
+    /**
+     * Päringuga muudetavad seaded või nende eesliited. Failide asukohad, vahemälu, töötajad ning lõimede arvud on
+     * kõigile analüüsidele ühised
+     */
+    private static final List<String> OVERRIDABLE = Arrays.asList("function.", "point.", "search.", "result.",
+            "memory.", "measure.clock", "measure.precise", "measure.rerun", "measure.rerun.threshold", "measure.unit",
+            "measure.warmup", "complexity.scoring", "output.memory", "mode", "job.id");
+
+    // serveri käivitusaeg tunnuse alguses, et eelmise käivituse kaustad uute analüüsidega ei kattuks
+    private final String idPrefix = Long.toString(System.currentTimeMillis(), 36) + "-";
+    private final AtomicLong ids = new AtomicLong();
+    private final Map<String, Job> jobs = new LinkedHashMap<>();
+    private final int retained = Math.toIntExact(Config.valueAsLong("server.jobs.retain", 1000L));
+    private final ExecutorService pool;
+    private final ScheduledExecutorService deadlines;
+    private final Path workDir;
+    private final Properties forced = forcedOverrides();
+
+    private GradingServer() throws IOException {
+        pool = Executors.newFixedThreadPool(Math.toIntExact(Config.valueAsLong("server.threads", 1L)));
+        deadlines = Executors.newSingleThreadScheduledExecutor(r -> {
+            Thread thread = new Thread(r, "job-deadline");
+            thread.setDaemon(true);
+            return thread;
+        });
+        String dir = Config.value("server.dir");
+        workDir = dir == null || dir.isEmpty() ? Files.createTempDirectory("timecomplexity")
+                : Files.createDirectories(Paths.get(dir));
+    }
+
+    /**
+     * Käivitab serveri. Meetod naaseb kohe, server töötab oma lõimedes kuni protsessi lõpetamiseni
+     *
+     * @param port kohaliku aadressi port
+     */
+    public static void start(int port) throws IOException {
+        GradingServer server = new GradingServer();
+        HttpServer http = HttpServer.create(new InetSocketAddress(InetAddress.getLoopbackAddress(), port), 0);
+        http.createContext("/jobs", server::handle);
+        http.setExecutor(Executors.newCachedThreadPool());
+        http.start();
+        logger.info("Server kuulab aadressil {}, analüüse korraga {}", http.getAddress(),
+                Config.valueAsLong("server.threads", 1L));
+    }
+
+    private void handle(HttpExchange exchange) throws IOException {
+        try {
+            String path = exchange.getRequestURI().getPath();
+            Map<String, String> query = parseQuery(exchange.getRequestURI().getRawQuery());
+            if (exchange.getRequestMethod().equals("POST") && path.equals("/jobs")) {
+                submit(exchange, query);
+            } else if (exchange.getRequestMethod().equals("GET") && path.startsWith("/jobs/")) {
+                status(exchange, path.substring("/jobs/".length()), query);
+            } else {
+                respond(exchange, 404, "Tundmatu päring\n");
+            }
+        } catch (IllegalArgumentException e) {
+            respond(exchange, 400, e.getMessage() + "\n");
+        } catch (RuntimeException e) {
+            logger.error("Päringu töötlemine ebaõnnestus", e);
+            respond(exchange, 500, "Päringu töötlemine ebaõnnestus\n");
+        } finally {
+            exchange.close();
+        }
+    }
+
+    /**
+     * Salvestab päringu sisus oleva lähtekoodi analüüsi kausta ning lisab analüüsi järjekorda
+     */
+    private void submit(HttpExchange exchange, Map<String, String> query) throws IOException {
+        String fileName = query.remove("file");
+        if (fileName == null || !FILE_NAME.matcher(fileName).matches())
+            throw new IllegalArgumentException("Parameeter file peab olema .java või .py faili nimi");
+        Properties overrides = overrides(query);
+        overrides.putAll(forced);
+        String id = idPrefix + ids.incrementAndGet();
+        Path dir = workDir.resolve(id);
+        Path file = dir.resolve(fileName);
+        boolean created = false;
+        try {
+            Files.createDirectory(dir);
+            created = true;
+            try (InputStream body = exchange.getRequestBody()) {
+                Files.copy(body, file);
+            }
+            if (fileName.endsWith(".py")) {
+                // Pythoni käivitaja impordib sisendi genereerija vaadeldava mooduliga samast kaustast
+                Path dataGen = Paths.get(Config.valueAsString("source.python", "."), "datagen.py");
+                if (Files.exists(dataGen))
+                    Files.copy(dataGen, dir.resolve("datagen.py"), StandardCopyOption.REPLACE_EXISTING);
+            }
+        } catch (IOException e) {
+            if (created) delete(dir);
+            throw new UncheckedIOException("Analüüsi " + id + " failide salvestamine ebaõnnestus", e);
+        }
+        Job job = new Job();
+        synchronized (jobs) {
+            jobs.put(id, job);
+            prune();
+        }
+        job.future = pool.submit(() -> run(job, file, overrides));
+        exchange.getResponseHeaders().set("Location", "/jobs/" + id);
+        respond(exchange, 202, id + "\n");
+        logger.info("Analüüs {} lisati järjekorda: {}", id, fileName);
+    }
+
+    /**
+     * Koostab päringu parameetritest seadete ülekatte
+     *
+     * @param query päringu parameetrid peale faili nime
+     * @return seadete ülekate
+     * @throws IllegalArgumentException kui seadet ei saa päringuga muuta või töö tunnus on vigane
+     */
+    static Properties overrides(Map<String, String> query) {
+        Properties overrides = new Properties();
+        for (Map.Entry<String, String> entry : query.entrySet()) {
+            String name = entry.getKey();
+            if (OVERRIDABLE.stream().noneMatch(allowed -> allowed.endsWith(".") ? name.startsWith(allowed)
+                    : name.equals(allowed)))
+                throw new IllegalArgumentException("Seadet " + name + " ei saa päringuga muuta");
+            if (name.equals("job.id")) {
+                try {
+                    Journal.checkId(entry.getValue());
+                } catch (AnalysisException e) {
+                    throw new IllegalArgumentException(e.getMessage());
+                }
+            }
+            overrides.setProperty(name, entry.getValue());
+        }
+        return overrides;
+    }
+
+    /**
+     * Leiab seaded, mis kaetakse iga analüüsi seadete peale, et ajapiirangu ületanud käivitus ei jääks serveri lõime
+     * tööle. Eraldi JVM-ides mõõtmisel lõpetatakse ületanud protsess, muul juhul lisatakse klassidesse katkestuse
+     * kontrollid
+     *
+     * @return kohustuslikud seaded
+     * @throws IllegalArgumentException kui worker.fork ei ole 1 ning katkestuse kontrollide lisamiseks vajalik teek
+     *                                  puudub
+     */
+    static Properties forcedOverrides() {
+        Properties forced = new Properties();
+        if (Config.valueAsLong("worker.fork", 0L) == 1) return forced;
+        try {
+            Class.forName("org.objectweb.asm.ClassReader", false, GradingServer.class.getClassLoader());
+        } catch (ClassNotFoundException e) {
+            throw new IllegalArgumentException("Seadistuse probleem: hindamisserver vajab seadet worker.fork=1 või " +
+                    "katkestuse kontrollide lisamiseks teeki ASM");
+        }
+        forced.setProperty("instrument.cancel", "1");
+        logger.info("Mõõtmised toimuvad serveri protsessis, klassidesse lisatakse katkestuse kontrollid");
+        return forced;
+    }
+
+    /**
+     * Eemaldab vanimad lõppenud analüüsid, kuni alles on server.jobs.retain analüüsi. Järjekorras olevaid ning
+     * pooleliolevaid analüüse ei eemaldata. Kutsutakse välja jobs lukuga
+     */
+    private void prune() {
+        Iterator<Job> iterator = jobs.values().iterator();
+        while (jobs.size() > retained && iterator.hasNext()) {
+            if (iterator.next().status.equals("done")) iterator.remove();
+        }
+    }
+
+    /**
+     * Teeb analüüsi seadete ülekattega. Ajapiirangu ületamisel katkestatakse analüüsi lõim
+     */
+    private void run(Job job, Path file, Properties overrides) {
+        Config.setOverrides(overrides);
+        ScheduledFuture<?> deadline = null;
+        try {
+            synchronized (job) {
+                job.thread = Thread.currentThread();
+                job.status = "running";
+            }
+            long timeout = Config.valueAsLong("server.job.timeout", 600000L);
+            deadline = deadlines.schedule(() -> {
+                synchronized (job) {
+                    if (job.thread == null) return;
+                    job.timedOut = true;
+                    job.thread.interrupt();
+                }
+            }, timeout, TimeUnit.MILLISECONDS);
+            String result = BatchRunner.analyse(file);
+            synchronized (job) {
+                job.thread = null;
+                job.result = job.timedOut ? "Comment :=>> Analüüsi ajapiirang ületati" : result;
+                job.status = "done";
+            }
+        } finally {
+            synchronized (job) {
+                job.thread = null;
+                if (job.result == null) {
+                    job.result = "Comment :=>> Analüüs ebaõnnestus";
+                    job.status = "done";
+                }
+            }
+            if (deadline != null) deadline.cancel(false);
+            Config.setOverrides(null);
+            delete(file.getParent());
+        }
+    }
+
+    /**
+     * Väljastab analüüsi oleku, vajadusel oodates selle lõppu
+     */
+    private void status(HttpExchange exchange, String id, Map<String, String> query) throws IOException {
+        Job job;
+        synchronized (jobs) {
+            job = jobs.get(id);
+        }
+        if (job == null) {
+            respond(exchange, 404, "Analüüsi " + id + " ei leitud\n");
+            return;
+        }
+        String wait = query.get("wait");
+        if (wait != null && job.future != null) {
+            try {
+                job.future.get(Long.parseLong(wait), TimeUnit.MILLISECONDS);
+            } catch (NumberFormatException e) {
+                throw new IllegalArgumentException("Parameeter wait peab olema täisarv");
+            } catch (TimeoutException | ExecutionException ignored) {
+                // olek väljastatakse allpool
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        }
+        synchronized (job) {
+            respond(exchange, 200, job.status + "\n" + (job.result != null ? job.result + "\n" : ""));
+        }
+    }
+
+    private static Map<String, String> parseQuery(String query) throws UnsupportedEncodingException {
+        Map<String, String> parameters = new LinkedHashMap<>();
+        if (query == null || query.isEmpty()) return parameters;
+        for (String pair : query.split("&")) {
+            int split = pair.indexOf('=');
+            String name = URLDecoder.decode(split < 0 ? pair : pair.substring(0, split), "UTF-8");
+            String value = split < 0 ? "" : URLDecoder.decode(pair.substring(split + 1), "UTF-8");
+            parameters.put(name, value);
+        }
+        return parameters;
+    }
+
+    private static void respond(HttpExchange exchange, int code, String body) throws IOException {
+        byte[] bytes = body.getBytes(StandardCharsets.UTF_8);
+        exchange.getResponseHeaders().set("Content-Type", "text/plain; charset=utf-8");
+        exchange.sendResponseHeaders(code, bytes.length);
+        try (OutputStream out = exchange.getResponseBody()) {
+            out.write(bytes);
+        }
+    }
+
+    private static void delete(Path dir) {
+        try (Stream<Path> files = Files.walk(dir)) {
+            files.sorted(Comparator.reverseOrder()).forEach(path -> path.toFile().delete());
+        } catch (IOException e) {
+            logger.warn("Analüüsi kausta {} ei õnnestunud kustutada: {}", dir, String.valueOf(e));
+        }
+    }
+
+    /**
+     * Ühe analüüsi olek
+     */
+    private static final class Job {
+        private volatile Future<?> future;
+        private volatile String status = "queued";
+        private volatile String result;
+        private Thread thread;
+        private boolean timedOut = false;
+    }
+}
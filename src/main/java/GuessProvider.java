@@ -1,10 +1,16 @@
+import java.io.Serializable;
+import java.util.ArrayList;
 import java.util.HashSet;
+import java.util.List;
 import java.util.Set;
 
 /**
- * Klass GuessProvider sisaldab topelkahendotsingu loogikat.
+ * Klass GuessProvider sisaldab topelkahendotsingu loogikat. Seadega search.strategy=extrapolate sobitatakse seni
+ * mõõdetud tööaegadele astmefunktsioon ning järgmiseks proovitakse sisendi suurust, mille korral see ennustab
+ * soovitud tööaega. Otsingu olekut saab serialiseerida, et katkenud otsingut jätkata (vt Journal).
  */
-public class GuessProvider {
+public class GuessProvider implements Serializable {
+    private static final long serialVersionUID = 1L;
     private boolean found_windows;
     private boolean finished = false;
     private long maxN;
@@ -12,24 +18,39 @@ public class GuessProvider {
     private long high;
     private long current;
     private Set<Long> attemptedValues;
+    private final boolean extrapolate;
+    private final List<double[]> probes = new ArrayList<>();
+    private boolean predictedCurrent = false;
     private final double TIME_OFFSET;
     private final long TIME_LIMIT;
 
     /**
-     * Koostab topeltkahendotsingu algseisu
+     * Koostab topeltkahendotsingu algseisu, sihiks on seadega function.goal.time määratud tööaeg
      *
      * @param low  alumine piir
      * @param high ülemine piir
      */
     public GuessProvider(long low, long high) {
+        this(low, high, Config.valueAsLong("function.goal.time", 2000L));
+    }
+
+    /**
+     * Koostab topeltkahendotsingu algseisu
+     *
+     * @param low  alumine piir
+     * @param high ülemine piir
+     * @param goal otsitav mõõtmistulemus, näiteks tööaeg millisekundites või operatsioonide arv
+     */
+    public GuessProvider(long low, long high, long goal) {
         this.maxN = high;
         this.low = low;
         this.high = high;
         this.current = low;
         this.found_windows = false;
         this.attemptedValues = new HashSet<>();
-        TIME_LIMIT = Config.valueAsLong("function.goal.time", 2000L);
+        TIME_LIMIT = goal;
         TIME_OFFSET = Config.valueAsDouble("function.goal.offset", 0.25);
+        extrapolate = Config.valueAsString("search.strategy", "doubling").equals("extrapolate");
     }
 
     /**
@@ -41,6 +62,13 @@ public class GuessProvider {
         return current;
     }
 
+    /**
+     * @return kas otsitav sisendi suurus on leitud
+     */
+    public boolean isFinished() {
+        return finished;
+    }
+
     /**
      * Viib läbi ühe topeltkahendotsingu sammu. Tagastab true, kui töö on lõppenud
      *
@@ -48,9 +76,18 @@ public class GuessProvider {
      * @return kas otsitav sisendi suurus on leitud
      */
     public boolean findNext(double average) {
+        attemptedValues.add(current);
+        if (average >= TIME_LIMIT / 100.0 && average < Double.MAX_VALUE) {
+            probes.add(new double[]{current, average});
+        }
+        long predicted = extrapolate ? predict() : -1;
+        boolean usePrediction = false;
         if (average < TIME_LIMIT - TIME_LIMIT * TIME_OFFSET) {
             low = current;
-            if (!found_windows) {
+            if (predicted > low && (!found_windows || predicted < high)) {
+                current = predicted;
+                usePrediction = true;
+            } else if (!found_windows) {
                 current *= 2;
                 current++;
             } else {
@@ -59,13 +96,20 @@ public class GuessProvider {
         } else if (average > TIME_LIMIT + TIME_LIMIT * TIME_OFFSET) {
             high = current;
             found_windows = true;
-            current = (low + high) / 2;
+            // Ennustus ületas soovitud tööaja, seega tehakse vähemalt üks kahendotsingu samm
+            if (predicted > low && predicted < high && !predictedCurrent) {
+                current = predicted;
+                usePrediction = true;
+            } else {
+                current = (low + high) / 2;
+            }
             if (attemptedValues.contains(current)) {
                 current--;
             }
         } else {
             finished = true;
         }
+        predictedCurrent = usePrediction;
         if (current > maxN) {
             current = maxN;
             finished = true;
@@ -80,4 +124,28 @@ public class GuessProvider {
         }
         return finished;
     }
+
+    /**
+     * Sobitab kahe viimase mõõdetava tööajaga katse põhjal seose aeg = a * n^b ning leiab sisendi suuruse, mille
+     * korral ennustatud tööaeg on seadega function.goal.time määratud aeg. Mõõdetavaks loetakse tööaeg, mis on
+     * vähemalt 1% soovitud tööajast
+     *
+     * @return ennustatud sisendi suurus või -1, kui ennustust ei saa teha
+     */
+    private long predict() {
+        if (probes.isEmpty()) return -1;
+        double[] second = probes.get(probes.size() - 1);
+        // Ühe katse korral eeldatakse kuupkeerukust, mis ei ületa soovitud tööaega ühegi polünomiaalse funktsiooni
+        // puhul
+        double exponent = 3;
+        if (probes.size() >= 2) {
+            double[] first = probes.get(probes.size() - 2);
+            if (first[0] == second[0] || first[0] < 1 || second[0] < 1) return -1;
+            exponent = Math.log(second[1] / first[1]) / Math.log(second[0] / first[0]);
+        }
+        if (!(exponent > 0)) return -1;
+        double n = second[0] * Math.pow(TIME_LIMIT / second[1], 1 / exponent);
+        if (!(n < maxN)) return maxN;
+        return Math.round(n);
+    }
 }
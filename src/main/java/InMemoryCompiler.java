@@ -0,0 +1,234 @@
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import javax.tools.*;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.URI;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.*;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+
+/**
+ * Klass InMemoryCompiler kompileerib Java faile mällu ilma .class faile kettale kirjutamata. Kompileerimise tulemused
+ * jäetakse lähtekoodi ning kompilaatori seadete räsi järgi meelde, mistõttu kompileeritakse sama sisuga faili ühe
+ * protsessi jooksul vaid üks kord, ka siis, kui mitu analüüsi küsib seda korraga. Meeles hoitakse kuni
+ * compile.cache.entries viimati kasutatud faili tulemust.
+ */
+public class InMemoryCompiler {
+    private static final Logger logger = LoggerFactory.getLogger(InMemoryCompiler.class);
+    private static final int CACHE_ENTRIES = Math.toIntExact(Config.valueAsLong("compile.cache.entries", 256L));
+    private static final Map<String, CompletableFuture<Map<String, byte[]>>> cache =
+            new LinkedHashMap<>(16, 0.75f, true);
+    private static JavaCompiler compiler;
+
+    /**
+     * Tagastab Java kompilaatori. Sama isendit kasutatakse kõigi analüüside jaoks
+     *
+     * @return süsteemne Java kompilaator
+     */
+    private static synchronized JavaCompiler getCompiler() {
+        if (compiler == null) {
+            compiler = ToolProvider.getSystemJavaCompiler();
+            if (compiler == null)
+                throw new AnalysisException("Java kompilaatorit ei leitud. Programm tuleb käivitada JDK alamkaustas jre/bin/java väljakutsega.");
+        }
+        return compiler;
+    }
+
+    /**
+     * Kompileerib faili või tagastab varem sama sisuga faili kompileerimisel saadud klassid
+     *
+     * @param source kompileeritava faili asukoht
+     * @return klasside nimed ning nende baitkood, kompileerimise ebaõnnestumisel null
+     */
+    public static Map<String, byte[]> compile(Path source) throws IOException {
+        List<String> optionList = options();
+        String content = new String(Files.readAllBytes(source), StandardCharsets.UTF_8);
+        String key = key(content, optionList);
+        CompletableFuture<Map<String, byte[]>> future;
+        boolean owner = false;
+        synchronized (cache) {
+            future = cache.get(key);
+            if (future == null) {
+                future = new CompletableFuture<>();
+                cache.put(key, future);
+                owner = true;
+                Iterator<String> eldest = cache.keySet().iterator();
+                while (cache.size() > CACHE_ENTRIES && eldest.hasNext()) {
+                    eldest.next();
+                    eldest.remove();
+                }
+            }
+        }
+        if (owner) return compileOnce(key, future, source, content, optionList);
+        try {
+            return future.get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new AnalysisException("Analüüs katkestati");
+        } catch (ExecutionException e) {
+            Throwable cause = e.getCause();
+            if (cause instanceof IOException) throw (IOException) cause;
+            if (cause instanceof RuntimeException) throw (RuntimeException) cause;
+            throw new IllegalStateException(cause);
+        }
+    }
+
+    /**
+     * Kompileerib faili ning teatab tulemuse samal ajal sama faili ootavatele analüüsidele. Ebaõnnestunud
+     * kompileerimise tulemust meelde ei jäeta
+     *
+     * @param key        lähtekoodi ning seadete räsi
+     * @param future     ootajate tulemus
+     * @param source     faili asukoht
+     * @param content    faili sisu
+     * @param optionList kompilaatori seaded
+     * @return klasside nimed ning nende baitkood, kompileerimise ebaõnnestumisel null
+     */
+    private static Map<String, byte[]> compileOnce(String key, CompletableFuture<Map<String, byte[]>> future,
+                                                   Path source, String content, List<String> optionList)
+            throws IOException {
+        Map<String, byte[]> classes = null;
+        try {
+            classes = compile(source, content, optionList);
+            future.complete(classes);
+            return classes;
+        } catch (IOException | RuntimeException | Error e) {
+            future.completeExceptionally(e);
+            throw e;
+        } finally {
+            if (classes == null) {
+                synchronized (cache) {
+                    cache.remove(key, future);
+                }
+            }
+        }
+    }
+
+    /**
+     * Kompileerib lähtekoodi mällu
+     *
+     * @param source     faili asukoht, mida kasutatakse veateadetes
+     * @param content    faili sisu
+     * @param optionList kompilaatori seaded
+     * @return klasside nimed ning nende baitkood, kompileerimise ebaõnnestumisel null
+     */
+    private static Map<String, byte[]> compile(Path source, String content, List<String> optionList) throws IOException {
+        // https://stackoverflow.com/a/21544850/3667389
+        DiagnosticCollector<JavaFileObject> diagnostics = new DiagnosticCollector<>();
+        JavaCompiler compiler = getCompiler();
+        Map<String, ByteArrayOutputStream> output = new HashMap<>();
+        try (StandardJavaFileManager standardFileManager = compiler.getStandardFileManager(diagnostics, null, null);
+             JavaFileManager fileManager = new ForwardingJavaFileManager<JavaFileManager>(standardFileManager) {
+                 @Override
+                 public JavaFileObject getJavaFileForOutput(Location location, String className, JavaFileObject.Kind kind, FileObject sibling) {
+                     return new SimpleJavaFileObject(URI.create("mem:///" + className.replace('.', '/') + kind.extension), kind) {
+                         @Override
+                         public OutputStream openOutputStream() {
+                             ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+                             output.put(className, bytes);
+                             return bytes;
+                         }
+                     };
+                 }
+             }) {
+            JavaFileObject compilationUnit = new SimpleJavaFileObject(source.toAbsolutePath().toUri(), JavaFileObject.Kind.SOURCE) {
+                @Override
+                public CharSequence getCharContent(boolean ignoreEncodingErrors) {
+                    return content;
+                }
+            };
+            JavaCompiler.CompilationTask task = compiler.getTask(
+                    null,
+                    fileManager,
+                    diagnostics,
+                    optionList,
+                    null,
+                    Collections.singletonList(compilationUnit));
+            if (!task.call()) {
+                for (Diagnostic<? extends JavaFileObject> diagnostic : diagnostics.getDiagnostics()) {
+                    logger.warn("Kompileerimise probleem: {}", diagnostic.getMessage(Locale.US));
+                    logger.error("Error real {} failis {}",
+                            diagnostic.getLineNumber(),
+                            diagnostic.getSource() == null ? source : diagnostic.getSource().toUri());
+                }
+                return null;
+            }
+        }
+        Map<String, byte[]> classes = new HashMap<>();
+        for (Map.Entry<String, ByteArrayOutputStream> entry : output.entrySet()) {
+            classes.put(entry.getKey(), entry.getValue().toByteArray());
+        }
+        return Collections.unmodifiableMap(classes);
+    }
+
+    /**
+     * Leiab faili kompileerimise tunnuse, mis muutub koos faili sisu ja kompilaatori seadetega
+     *
+     * @param source faili asukoht
+     * @return faili sisu ja kompilaatori seadete räsi
+     */
+    public static String key(Path source) throws IOException {
+        return key(new String(Files.readAllBytes(source), StandardCharsets.UTF_8), options());
+    }
+
+    private static String key(String content, List<String> optionList) {
+        return hash(String.join("\0", optionList) + "\0" + content);
+    }
+
+    private static List<String> options() {
+        List<String> optionList = new ArrayList<>();
+        optionList.add("-classpath");
+        optionList.add(System.getProperty("java.class.path"));
+        return optionList;
+    }
+
+    /**
+     * Leiab teksti SHA-256 räsi
+     *
+     * @param text räsitav tekst
+     * @return räsi kuueteistkümnendsüsteemis
+     */
+    static String hash(String text) {
+        try {
+            byte[] digest = MessageDigest.getInstance("SHA-256").digest(text.getBytes(StandardCharsets.UTF_8));
+            StringBuilder builder = new StringBuilder();
+            for (byte b : digest) {
+                builder.append(String.format("%02x", b));
+            }
+            return builder.toString();
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    /**
+     * Klassilaadija, mis laeb klassid mällu kompileeritud baitkoodist. Iga analüüs kasutab oma klassilaadijat, et
+     * staatilised väljad analüüside vahel jagatud ei oleks
+     */
+    public static class InMemoryClassLoader extends ClassLoader {
+        private final Map<String, byte[]> classes;
+
+        /**
+         * @param classes klasside nimed ning nende baitkood
+         */
+        public InMemoryClassLoader(Map<String, byte[]> classes) {
+            super(InMemoryCompiler.class.getClassLoader());
+            this.classes = classes;
+        }
+
+        @Override
+        protected Class<?> findClass(String name) throws ClassNotFoundException {
+            byte[] bytes = classes.get(name);
+            if (bytes == null) throw new ClassNotFoundException(name);
+            return defineClass(name, bytes, 0, bytes.length);
+        }
+    }
+}
@@ -0,0 +1,197 @@
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.IOException;
+import java.lang.reflect.Array;
+import java.math.BigDecimal;
+import java.math.BigInteger;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.List;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.function.LongFunction;
+
+/**
+ * Klass InputPool hoiab sisendi suuruse järgi genereeritud sisendeid, et sama suurusega mõõtmiste korral ei peaks
+ * sisendit uuesti genereerima. Sisendite hinnanguline mälukasutus on piiratud seadega input.pool.bytes, piiri
+ * ületamisel eemaldatakse kõige kauem kasutamata sisend. Hoidlas hoitakse ainult sisendeid, mille suurust saab hinnata
+ * ning mida saab kopeerida: muutumatud väärtused (String, arvude ümbrisklassid) ning neist koosnevad massiivid. Muud
+ * sisendid, näiteks List või kasutaja klassi objekt, genereeritakse iga väljakutse jaoks uuesti.
+ */
+public class InputPool {
+    private static final Logger logger = LoggerFactory.getLogger(InputPool.class);
+    private static final List<Class<?>> IMMUTABLE = Arrays.asList(String.class, Long.class, Integer.class,
+            Short.class, Byte.class, Double.class, Float.class, Character.class, Boolean.class, BigInteger.class,
+            BigDecimal.class);
+    private final LongFunction<Object> provider;
+    private final long maxBytes;
+    private final boolean copy;
+    private final LinkedHashMap<Long, Entry> inputs = new LinkedHashMap<>(16, 0.75f, true);
+    private long usedBytes = 0;
+    private volatile boolean reported = false;
+
+    /**
+     * @param provider sisendi genereerija
+     */
+    public InputPool(LongFunction<Object> provider) {
+        this.provider = provider;
+        this.maxBytes = Config.valueAsLong("input.pool.bytes", Runtime.getRuntime().maxMemory() / 4);
+        this.copy = Config.valueAsLong("input.copy", 1L) != 0;
+    }
+
+    /**
+     * Genereerib sisendi ilma seda hoidlasse lisamata
+     *
+     * @param n sisendi suurus
+     * @return sisendi väärtus
+     */
+    public Object generate(long n) {
+        return provider.apply(n);
+    }
+
+    /**
+     * Tagastab etteantud suurusega sisendi. Kui seade input.copy ei ole 0, tagastatakse massiividest koopia, et
+     * sisendit muutev funktsioon ei mõjutaks järgmisi mõõtmisi. Sisend, mida hoidlas hoida ei saa, genereeritakse
+     * uuesti
+     *
+     * @param n sisendi suurus
+     * @return sisendi väärtus
+     */
+    public Object get(long n) {
+        Entry entry;
+        synchronized (this) {
+            entry = inputs.get(n);
+        }
+        if (entry == null) {
+            Object value = provider.apply(n);
+            if (!poolable(value)) {
+                if (!reported) {
+                    reported = true;
+                    logger.info("Sisendi tüüpi {} ei hoita hoidlas, see genereeritakse iga mõõtmise jaoks uuesti", value.getClass().getName());
+                }
+                return value;
+            }
+            long size = estimateSize(value);
+            if (size > maxBytes) return value;
+            entry = new Entry(value, size);
+            synchronized (this) {
+                Entry previous = inputs.put(n, entry);
+                if (previous != null) usedBytes -= previous.size;
+                usedBytes += size;
+                evict();
+            }
+        }
+        return copy ? copy(entry.value) : entry.value;
+    }
+
+    /**
+     * Eemaldab kõige kauem kasutamata sisendeid, kuni mälukasutus on lubatud piirides
+     */
+    private void evict() {
+        Iterator<Map.Entry<Long, Entry>> iterator = inputs.entrySet().iterator();
+        while (usedBytes > maxBytes && iterator.hasNext()) {
+            usedBytes -= iterator.next().getValue().size;
+            iterator.remove();
+        }
+    }
+
+    /**
+     * Kontrollib, kas sisendit saab hoidlas hoida: väärtus on muutumatu või sellistest väärtustest koosnev massiiv
+     *
+     * @param value sisend
+     * @return kas sisendi suurust saab hinnata ning selle saab kopeerida
+     */
+    static boolean poolable(Object value) {
+        if (value == null || IMMUTABLE.contains(value.getClass())) return true;
+        if (!value.getClass().isArray()) return false;
+        if (value.getClass().getComponentType().isPrimitive()) return true;
+        for (Object element : (Object[]) value) {
+            if (!poolable(element)) return false;
+        }
+        return true;
+    }
+
+    /**
+     * Hindab hoidlas hoitava sisendi (vt poolable) mälukasutust baitides. Massiivide korral arvestatakse elementide
+     * tüüpi
+     *
+     * @param value sisend
+     * @return hinnanguline suurus baitides
+     */
+    static long estimateSize(Object value) {
+        if (value == null) return 0;
+        if (value instanceof String) return 40 + 2L * ((String) value).length();
+        if (value instanceof BigInteger) return 40 + ((BigInteger) value).bitLength() / 8;
+        if (value instanceof BigDecimal) return 72 + ((BigDecimal) value).unscaledValue().bitLength() / 8;
+        if (!value.getClass().isArray()) return 16;
+        int length = Array.getLength(value);
+        Class<?> component = value.getClass().getComponentType();
+        if (component == long.class || component == double.class) return 16 + 8L * length;
+        if (component == int.class || component == float.class) return 16 + 4L * length;
+        if (component == short.class || component == char.class) return 16 + 2L * length;
+        if (component == byte.class || component == boolean.class) return 16 + (long) length;
+        long size = 16 + 8L * length;
+        for (int i = 0; i < length; i++) {
+            size += estimateSize(Array.get(value, i));
+        }
+        return size;
+    }
+
+    /**
+     * Koostab sisendi genereerija hoidla tunnuse faili asukohast ning sisu räsist, et muudetud faili DataGen.java
+     * korral varem genereeritud sisendeid ei kasutataks
+     *
+     * @param dataGen faili DataGen.java asukoht
+     * @return hoidla tunnus
+     */
+    static String key(Path dataGen) throws IOException {
+        String path = dataGen.toAbsolutePath().normalize().toString();
+        return path + '\0' + (Files.exists(dataGen) ? InMemoryCompiler.key(dataGen) : "");
+    }
+
+    /**
+     * Eemaldab sama faili varasema sisuga genereerijate hoidlad
+     *
+     * @param pools hoidlad tunnuste järgi
+     * @param key kasutatava hoidla tunnus (vt key)
+     */
+    static void dropStale(Map<String, InputPool> pools, String key) {
+        String path = key.substring(0, key.indexOf('\0') + 1);
+        pools.keySet().removeIf(other -> other.startsWith(path) && !other.equals(key));
+    }
+
+    /**
+     * Teeb massiivist sügava koopia. Muutumatud väärtused tagastatakse muutmata kujul
+     *
+     * @param value sisend
+     * @return sisendi koopia
+     */
+    static Object copy(Object value) {
+        if (value == null || !value.getClass().isArray()) return value;
+        int length = Array.getLength(value);
+        Object result = Array.newInstance(value.getClass().getComponentType(), length);
+        if (value.getClass().getComponentType().isPrimitive()) {
+            System.arraycopy(value, 0, result, 0, length);
+        } else {
+            Object[] source = (Object[]) value;
+            Object[] target = (Object[]) result;
+            for (int i = 0; i < length; i++) {
+                target[i] = copy(source[i]);
+            }
+        }
+        return result;
+    }
+
+    private static class Entry {
+        private final Object value;
+        private final long size;
+
+        private Entry(Object value, long size) {
+            this.value = value;
+            this.size = size;
+        }
+    }
+}
@@ -0,0 +1,116 @@
+import org.objectweb.asm.*;
+
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Map;
+import java.util.Set;
+import java.util.stream.Collectors;
+
+/**
+ * Klass Instrumenter muudab kompileeritud klasside baitkoodi ASM abil. Iga meetodi algusesse ning iga tagasisuunalise
+ * hüppe ja switch-lause ette lisatakse meetodi Cancellation.check väljakutse, et ajapiirangu ületanud mõõtmise saaks
+ * lõime sulgemata katkestada. Operatsioonide loendamisel lisatakse meetodi algusesse ning iga hüppe ja switch-lause
+ * ette meetodi Operations.count väljakutse, seega loendatakse täidetud baasplokke. Teiste klasside (näiteks JDK)
+ * meetodeid ei muudeta, nende väljakutse on üks operatsioon; selliste väljakutsete ette lisatakse meetodi
+ * Operations.library väljakutse.
+ */
+public final class Instrumenter {
+    private static final String CANCELLATION = Type.getInternalName(Cancellation.class);
+    private static final String OPERATIONS = Type.getInternalName(Operations.class);
+
+    private Instrumenter() {
+    }
+
+    /**
+     * Lisab klassidesse katkestuse kontrollid ja/või operatsioonide loendamise
+     *
+     * @param classes klasside baidid nime järgi
+     * @param cancel  kas lisada katkestuse kontrollid
+     * @param count   kas lisada operatsioonide loendamine
+     * @return muudetud klasside baidid nime järgi
+     */
+    public static Map<String, byte[]> instrument(Map<String, byte[]> classes, boolean cancel, boolean count) {
+        Map<String, byte[]> result = new HashMap<>();
+        Set<String> owners = classes.keySet().stream().map(name -> name.replace('.', '/')).collect(Collectors.toSet());
+        for (Map.Entry<String, byte[]> entry : classes.entrySet()) {
+            ClassReader reader = new ClassReader(entry.getValue());
+            ClassWriter writer = new ClassWriter(reader, 0);
+            reader.accept(new ClassVisitor(Opcodes.ASM9, writer) {
+                @Override
+                public MethodVisitor visitMethod(int access, String name, String descriptor, String signature, String[] exceptions) {
+                    return new CheckInserter(super.visitMethod(access, name, descriptor, signature, exceptions), owners, cancel, count);
+                }
+            }, 0);
+            result.put(entry.getKey(), writer.toByteArray());
+        }
+        return result;
+    }
+
+    /**
+     * Meetodi muutja, mis lisab kontrolli meetodi algusesse ning hüpetele, mille sihtmärk on juba läbitud, ning
+     * loenduri meetodi algusesse ja kõigile hüpetele
+     */
+    private static final class CheckInserter extends MethodVisitor {
+        private final Set<Label> visited = new HashSet<>();
+        private final Set<String> owners;
+        private final boolean cancel;
+        private final boolean count;
+
+        private CheckInserter(MethodVisitor methodVisitor, Set<String> owners, boolean cancel, boolean count) {
+            super(Opcodes.ASM9, methodVisitor);
+            this.owners = owners;
+            this.cancel = cancel;
+            this.count = count;
+        }
+
+        private void check() {
+            if (cancel) super.visitMethodInsn(Opcodes.INVOKESTATIC, CANCELLATION, "check", "()V", false);
+        }
+
+        private void count() {
+            if (count) super.visitMethodInsn(Opcodes.INVOKESTATIC, OPERATIONS, "count", "()V", false);
+        }
+
+        @Override
+        public void visitCode() {
+            super.visitCode();
+            count();
+            check();
+        }
+
+        @Override
+        public void visitLabel(Label label) {
+            visited.add(label);
+            super.visitLabel(label);
+        }
+
+        @Override
+        public void visitJumpInsn(int opcode, Label label) {
+            count();
+            if (visited.contains(label)) check();
+            super.visitJumpInsn(opcode, label);
+        }
+
+        @Override
+        public void visitMethodInsn(int opcode, String owner, String name, String descriptor, boolean isInterface) {
+            if (count && !owners.contains(owner) && !(owner.equals("java/lang/Object") && name.equals("<init>"))) {
+                super.visitMethodInsn(Opcodes.INVOKESTATIC, OPERATIONS, "library", "()V", false);
+            }
+            super.visitMethodInsn(opcode, owner, name, descriptor, isInterface);
+        }
+
+        @Override
+        public void visitTableSwitchInsn(int min, int max, Label dflt, Label... labels) {
+            count();
+            check();
+            super.visitTableSwitchInsn(min, max, dflt, labels);
+        }
+
+        @Override
+        public void visitLookupSwitchInsn(Label dflt, int[] keys, Label[] labels) {
+            count();
+            check();
+            super.visitLookupSwitchInsn(dflt, keys, labels);
+        }
+    }
+}
@@ -0,0 +1,50 @@
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.MethodType;
+import java.lang.reflect.Array;
+import java.lang.reflect.Method;
+
+/**
+ * Liides Invoker kirjeldab ühe kindla meetodiga seotud väljakutsujat. Meetod seotakse MethodHandle abil ühe korra,
+ * mistõttu mõõdetavas lõigus ei toimu peegeldust, argumentide massiivi loomist ega ligipääsu kontrolle.
+ */
+@FunctionalInterface
+public interface Invoker {
+    /**
+     * Kutsub seotud meetodit välja
+     *
+     * @param input meetodi argument
+     * @return meetodi tagastusväärtus või null, kui meetod ei tagasta midagi
+     */
+    Object invoke(Object input) throws Throwable;
+
+    /**
+     * Seob ühe parameetriga staatilise meetodi. Argumendi tüüp teisendatakse vajadusel, näiteks Long väärtusest long
+     *
+     * @param method seotav meetod
+     * @return väljakutsuja
+     */
+    static Invoker bind(Method method) throws IllegalAccessException {
+        final MethodHandle handle = MethodHandles.publicLookup().unreflect(method)
+                .asType(MethodType.methodType(Object.class, Object.class));
+        return input -> (Object) handle.invokeExact(input);
+    }
+
+    /**
+     * Seob staatilise meetodi, mille kõikide parameetrite väärtusteks on null või primitiivse tüübi korral 0.
+     * Väljakutsel antud argumenti ei kasutata
+     *
+     * @param method seotav meetod
+     * @return väljakutsuja
+     */
+    static Invoker bindWithDefaults(Method method) throws IllegalAccessException {
+        Class<?>[] parameterTypes = method.getParameterTypes();
+        Object[] defaults = new Object[parameterTypes.length];
+        for (int i = 0; i < parameterTypes.length; i++) {
+            if (parameterTypes[i].isPrimitive()) defaults[i] = Array.get(Array.newInstance(parameterTypes[i], 1), 0);
+        }
+        final MethodHandle handle = MethodHandles.insertArguments(MethodHandles.publicLookup().unreflect(method), 0, defaults)
+                .asType(MethodType.methodType(Object.class));
+        return input -> (Object) handle.invokeExact();
+    }
+}
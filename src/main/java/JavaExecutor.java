@@ -1,31 +1,40 @@
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
-import javax.tools.*;
 import java.io.*;
+import java.lang.invoke.WrongMethodTypeException;
 import java.lang.reflect.InvocationTargetException;
 import java.lang.reflect.Method;
 import java.lang.reflect.Modifier;
-import java.net.URL;
-import java.net.URLClassLoader;
 import java.nio.file.Files;
 import java.nio.file.Path;
 import java.nio.file.Paths;
 import java.util.*;
 import java.util.concurrent.*;
-import java.util.function.Function;
-import java.util.stream.Collectors;
+import java.util.function.LongFunction;
 
 /**
- * Klass JavaExecutor sisaldab Java koodi kompileerimise ning käivitamise vahendeid.
+ * Klass JavaExecutor sisaldab Java koodi laadimise ning käivitamise vahendeid.
  */
 public class JavaExecutor extends FunctionExecutor {
     private static final Logger logger = LoggerFactory.getLogger(JavaExecutor.class);
     private String className;
     private Class<?> target;
-    private Function<Long, Object> inputProvider;
+    private InputPool inputs;
+    private MethodRunner runner;
+    private ExecutorService executor;
+    private ProbeThread probe;
+    private JvmWorkerPool.Job job;
+    private Path dataGenPath;
+    private String dataGenKey;
     private long TIME_LIMIT;
-    private static boolean printprogress = Config.valueAsLong("output.printprogress", 0L) == 1;
+    private static final Map<String, InputPool> inputPools = new HashMap<>();
+    private final boolean printprogress = Config.valueAsLong("output.printprogress", 0L) == 1;
+    private final boolean fork = Config.valueAsLong("worker.fork", 0L) == 1;
+    private final boolean operations = Config.valueAsString("measure.unit", "time").equals("ops");
+    private final boolean cancellable = Config.valueAsLong("instrument.cancel", 0L) == 1 || operations;
+    private final double searchTimeout = Config.valueAsDouble("search.timeout.factor", 1.5);
+    private final double pointTimeout = Config.valueAsDouble("point.timeout.factor", 2.0);
 
     /**
      * Leiab ning salvestab failinime alusel klassi nime
@@ -38,50 +47,36 @@ public class JavaExecutor extends FunctionExecutor {
     }
 
     /**
-     * Kompileerib faili ning tagastab selles leiduva klassi. Kompileeritavat faili otsitakse seadega source.java
-     * määratud kaustast
+     * Kompileerib faili ning tagastab selles leiduva klassi. Kompileerimine toimub mälus ning sama sisuga faili
+     * kompileeritakse ühe protsessi jooksul vaid üks kord. Seadega instrument.cancel=1 lisatakse klassidesse
+     * katkestuse kontrollid (klass Instrumenter), seadega measure.unit=ops ka operatsioonide loendamine
      *
      * @return kompileeritud klass
      */
     private Class<?> loadClass() {
-        // https://stackoverflow.com/a/21544850/3667389
-        DiagnosticCollector<JavaFileObject> diagnostics = new DiagnosticCollector<>();
-        JavaCompiler compiler = ToolProvider.getSystemJavaCompiler();
-        if (compiler == null)
-            throw new RuntimeException("Java kompilaatorit ei leitud. Programm tuleb käivitada JDK alamkaustas jre/bin/java väljakutsega.");
-        try (StandardJavaFileManager fileManager = compiler.getStandardFileManager(diagnostics, null, null)) {
-
-            List<String> optionList = new ArrayList<>();
-            optionList.add("-classpath");
-            optionList.add(System.getProperty("java.class.path"));
-
-            Iterable<? extends JavaFileObject> compilationUnit
-                    = fileManager.getJavaFileObjectsFromFiles(Collections.singletonList(source.toFile()));
-            JavaCompiler.CompilationTask task = compiler.getTask(
-                    null,
-                    fileManager,
-                    diagnostics,
-                    optionList,
-                    null,
-                    compilationUnit);
-            if (task.call()) {
-                URLClassLoader classLoader = new URLClassLoader(new URL[]{new File(Config.valueAsString("source.java", ".")).toURI().toURL()});
-                return classLoader.loadClass(className);
-            } else {
-                for (Diagnostic<? extends JavaFileObject> diagnostic : diagnostics.getDiagnostics()) {
-                    logger.warn("Kompileerimise probleem: {}", diagnostic.getMessage(Locale.US));
-                    logger.error("Error real {} failis {}",
-                            diagnostic.getLineNumber(),
-                            diagnostic.getSource().toUri());
-                }
-            }
+        try {
+            Map<String, byte[]> classes = InMemoryCompiler.compile(source);
+            if (classes == null) return null;
+            if (cancellable) classes = Instrumenter.instrument(classes, true, operations);
+            return new InMemoryCompiler.InMemoryClassLoader(classes).loadClass(className);
         } catch (IOException e) {
+            logger.error("Faili {} ei õnnestunud lugeda", source);
         } catch (ClassNotFoundException e) {
             logger.error("Klassi {} ei leitud", className);
         }
         return null;
     }
 
+    @Override
+    protected Path dataGenSource() {
+        return Paths.get(Config.valueAsString("source.java", "."), "DataGen.java").toAbsolutePath().normalize();
+    }
+
+    @Override
+    protected String runtimeVersion() {
+        return System.getProperty("java.vm.name") + " " + System.getProperty("java.version");
+    }
+
     /**
      * Valmistab ette sisendi genereerimise DataGen.java meetodi getInput abil
      *
@@ -92,53 +87,70 @@ public class JavaExecutor extends FunctionExecutor {
         target = loadClass();
         if (target == null) {
             logger.error("Klassi nimega {} ei õnnestunud laadida", className);
-            System.out.println("Comment :=>> Kompileerimise probleem");
-            System.exit(1);
+            throw new AnalysisException("Kompileerimise probleem");
         }
 
         TIME_LIMIT = Config.valueAsLong("function.goal.time", 2000L);
 
-        inputProvider = aLong -> aLong;
+        dataGenPath = dataGenSource();
         try {
-            Path sourcePath = Paths.get(Config.valueAsString("source.java", "."), "DataGen.java");
-            if (Files.exists(sourcePath)) {
-                Class<?> loadedClass = new JavaExecutor(sourcePath).loadClass();
-                if (loadedClass == null) throw new NoSuchMethodException();
-                final Method inputClass = loadedClass.getMethod("getInput", long.class);
-                inputProvider = aLong -> {
-                    try {
-                        return inputClass.invoke(null, aLong);
-                    } catch (IllegalAccessException | InvocationTargetException e) {
-                        throw new RuntimeException("Sisendi genereerimine ebaõnnestus", e);
-                    }
-                };
-            } else {
-                logger.info("Sisendi genereerimise faili DataGen.java ei õnnestunud kompileerida, seega sisendi suurust kasutatakse sisendina");
+            dataGenKey = InputPool.key(dataGenPath);
+        } catch (IOException e) {
+            logger.error("Faili {} lugemine ebaõnnestus: {}", dataGenPath, String.valueOf(e));
+            throw new AnalysisException("Sisendi genereerija lugemine ebaõnnestus");
+        }
+        synchronized (inputPools) {
+            inputs = inputPools.get(dataGenKey);
+            if (inputs == null) {
+                InputPool.dropStale(inputPools, dataGenKey);
+                inputs = new InputPool(loadInputProvider(dataGenPath));
+                inputPools.put(dataGenKey, inputs);
             }
-        } catch (NoSuchMethodException e) {
-            logger.info("Sisendi genereerimise meetodit getInput ei leitud failist DataGen.java, seega sisendi suurust kasutatakse sisendina");
         }
 
         try {
             evaluate();
+        } catch (AnalysisException e) {
+            throw e;
         } catch (Exception e) {
             logger.error("Funktsiooni analüüs ebaõnnestus", e);
         }
         return results;
     }
 
+    /**
+     * Kompileerib faili DataGen.java ning koostab selle meetodit getInput kasutava sisendi genereerija. Kui faili või
+     * meetodit ei leidu, kasutatakse sisendina sisendi suurust
+     *
+     * @param dataGenPath faili DataGen.java asukoht
+     * @return sisendi genereerija
+     */
+    private static LongFunction<Object> loadInputProvider(Path dataGenPath) {
+        try {
+            if (Files.exists(dataGenPath)) {
+                Class<?> loadedClass = new JavaExecutor(dataGenPath).loadClass();
+                if (loadedClass == null) throw new NoSuchMethodException();
+                return MethodRunner.inputProvider(loadedClass);
+            } else {
+                logger.info("Sisendi genereerimise faili DataGen.java ei õnnestunud kompileerida, seega sisendi suurust kasutatakse sisendina");
+            }
+        } catch (NoSuchMethodException | IllegalAccessException e) {
+            logger.info("Sisendi genereerimise meetodit getInput ei leitud failist DataGen.java, seega sisendi suurust kasutatakse sisendina");
+        }
+        return aLong -> aLong;
+    }
+
     /**
      * Otsib vaadeldavast klassist etteantud nimega meetodi. Kasutatakse esimest leitud sobiva nimega meetodit
      */
-    private void evaluate() throws InvocationTargetException, IllegalAccessException, ClassNotFoundException, IOException, InstantiationException {
+    private void evaluate() throws InvocationTargetException, IllegalAccessException, IOException {
         for (Method method : target.getDeclaredMethods()) {
             if (!Modifier.isPublic(method.getModifiers()) || !Modifier.isStatic(method.getModifiers())) {
                 continue;
             }
             String functionName = Config.value("function.name");
             if (functionName == null || functionName.isEmpty()) {
-                logger.error("Parameeter function.name peab leiduma failis config.properties");
-                System.exit(1);
+                throw new AnalysisException("Parameeter function.name peab leiduma failis config.properties");
             }
             if (!Objects.equals(method.getName(), functionName)) {
                 continue;
@@ -150,30 +162,57 @@ public class JavaExecutor extends FunctionExecutor {
     }
 
     /**
-     * Vastavalt seadistusele kasutatakse etteantud testkomplekti või suurima sisendi suuruse leidmist
+     * Vastavalt seadistusele kasutatakse etteantud testkomplekti või suurima sisendi suuruse leidmist. Seadega
+     * worker.fork=1 tehakse automaatse režiimi mõõtmised eraldi JVM-ides (klass JvmWorkerPool)
      *
      * @param method meetod, mida käivitada
      */
-    private void evaluateMethod(Method method) throws IllegalAccessException, InvocationTargetException, IOException, InstantiationException {
+    private void evaluateMethod(Method method) throws IllegalAccessException, InvocationTargetException, IOException {
         switch (Config.valueAsString("mode", "auto")) {
             case "auto":
+                try {
+                    runner = new MethodRunner(Invoker.bind(method), inputs);
+                } catch (WrongMethodTypeException | IllegalArgumentException e) {
+                    logger.error("Funktsioon peaks võtma ühe parameetri");
+                    throw new AnalysisException("Funktsioon peaks võtma ühe parameetri");
+                }
+                if (fork && operations) {
+                    logger.warn("Operatsioonide loendamine toimub samas protsessis, seadet worker.fork ei kasutata");
+                } else if (fork) {
+                    Map<String, byte[]> dataGen = Files.exists(dataGenPath) ? InMemoryCompiler.compile(dataGenPath) : null;
+                    job = new JvmWorkerPool.Job(InMemoryCompiler.compile(source), className, method,
+                            dataGenKey, dataGen != null ? dataGen : Collections.emptyMap());
+                }
                 Long maxN = Config.valueAsLong("function.n.max", (long) Integer.MAX_VALUE);
                 Long minN = Config.valueAsLong("function.n.min", 0L);
                 Long pointCount = Config.valueAsLong("point.count", 100L);
                 int repeats = 2;
                 long limit;
-                if (maxN - minN < pointCount || Config.valueAsLong("point.only", 0L) != 0) {
-                    limit = maxN;
-                } else {
-                    limit = findMaxArgument(method, repeats, minN, maxN);
-                }
+                journal = openJournal();
+                try {
+                    if (journal != null && journal.limit() != null) {
+                        limit = journal.limit();
+                    } else if (maxN - minN < pointCount || Config.valueAsLong("point.only", 0L) != 0) {
+                        limit = maxN;
+                    } else {
+                        limit = findMaxArgument(method, repeats, minN, maxN);
+                    }
+                    if (journal != null && journal.limit() == null) journal.limit(limit);
 
-                logger.info("Suurim kasutatav sisendi suurus: {}", limit);
-                fillPoints(method, limit, Math.toIntExact(pointCount));
+                    logger.info("Suurim kasutatav sisendi suurus: {}", limit);
+                    fillPoints(limit, Math.toIntExact(pointCount));
+                } finally {
+                    if (journal != null) journal.close();
+                }
                 break;
             case "manual":
-                int testCase = 1;
-                while (invokeManual(method, Integer.toString(testCase))) testCase++;
+                runner = new MethodRunner(Invoker.bindWithDefaults(method), null);
+                ThreadStreams.install();
+                try {
+                    runTestCases(this::invokeManual);
+                } finally {
+                    ThreadStreams.uninstall();
+                }
 
                 break;
             default:
@@ -183,69 +222,225 @@ public class JavaExecutor extends FunctionExecutor {
     }
 
     /**
-     * Käivitab etteantud testkomplekti ühe testjuhu. Kirjutab väljundisse, kas meetod andis õige tulemuse
+     * Käivitab etteantud testkomplekti ühe testjuhu. Kirjutab väljundisse, kas meetod andis õige tulemuse. Meetodi
+     * standardsisend ning -väljund suunatakse lõime kaupa (klass ThreadStreams), seega võib mitu testjuhtu korraga
+     * töötada. Sisendfail kaardistatakse mällu enne mõõtmist (klass MappedInputStream). Väljundit võrreldakse oodatud
+     * väljundiga kirjutamise ajal ning esimese erinevuse korral meetodi töö katkestatakse, sellise testjuhu tööaega ei
+     * salvestata
      *
-     * @param method   vaadeldav meetod
      * @param testCase testjuhu järjekorranumber
-     * @return kas käivitamine õnnestus
      */
-    private boolean invokeManual(Method method, String testCase) throws InvocationTargetException, IllegalAccessException, IOException, InstantiationException {
+    private void invokeManual(String testCase) throws InvocationTargetException, IOException {
         String testLocation = Config.value("source.tests");
-        if (!Files.exists(Paths.get(testLocation, String.format("meta%s.txt", testCase)))) {
-            return false;
-        }
         long input_size = Long.parseLong(Config.get(Paths.get(testLocation, String.format("meta%s.txt", testCase)).toString()).getProperty("input_size"));
-        InputStream inputStream = Files.newInputStream(Paths.get(testLocation, String.format("input%s.txt", testCase)));
-        InputStream stdin = System.in;
-        System.setIn(inputStream);
-        ByteArrayOutputStream bout = new ByteArrayOutputStream();
-        PrintStream outputStream = new PrintStream(bout, true, "UTF-8");
-        PrintStream stdout = System.out;
-        System.setOut(outputStream);
-        timeMethod(method, input_size);
-        System.setIn(stdin);
-        System.setOut(stdout);
-        List<String> functionOutput = new BufferedReader(new StringReader(bout.toString("UTF-8"))).lines().collect(Collectors.toList());
-        List<String> expectedOutput = Files.readAllLines(Paths.get(testLocation, String.format("output%s.txt", testCase)));
+        try (InputStream inputStream = MappedInputStream.open(Paths.get(testLocation, String.format("input%s.txt", testCase)));
+             OutputVerifier verifier = new OutputVerifier(Paths.get(testLocation, String.format("output%s.txt", testCase)), true)) {
+            ThreadStreams.redirect(inputStream, verifier);
+            try {
+                timeMethod(input_size);
+            } catch (InvocationTargetException e) {
+                if (!(e.getCause() instanceof OutputVerifier.Mismatch)) throw e;
+            } finally {
+                ThreadStreams.reset();
+            }
+            logVerdict(testCase, verifier);
+        }
+    }
 
-        if (functionOutput.equals(expectedOutput)) {
-            logger.info("Programm väljastas õige vastuse '{}'", functionOutput);
-        } else {
-            logger.error("Programm väljastas '{}', aga pidi väljastama '{}'", functionOutput, expectedOutput);
+    /**
+     * Teeb täiendavaid mõõtmisi, et saada piisavas koguses ning ühtlasema jaotusega andmeid. Seadega
+     * point.strategy=adaptive valib mõõdetavad suurused klass PointPlanner, mis ajapiirangu ületamisel kitsendab
+     * vahemikku. Vastasel juhul on suurused ühtlaselt jaotatud ning pärast ajapiirangu ületamist suuremaid sisendeid
+     * enam ei mõõdeta
+     *
+     * @param limit  suurim kasutatav sisendi väärtus
+     * @param points mitu mõõtmist sooritada
+     */
+    private void fillPoints(long limit, int points) {
+        try {
+            if (operations && !Config.valueAsString("point.strategy", "uniform").equals("adaptive")) {
+                fillPointsParallel(limit, points);
+            } else if (Config.valueAsString("point.strategy", "uniform").equals("adaptive")) {
+                PointPlanner planner = new PointPlanner(limit, points);
+                for (long n = planner.next(); n >= 0; n = planner.next()) {
+                    double time = fillPoint(n);
+                    if (Double.isInfinite(time)) planner.timeout(n);
+                    else planner.record(n, time);
+                }
+                logger.info("Adaptiivse paigutuse järgi sobib kõige paremini O({})", planner.bestModel());
+            } else {
+                long increment = limit / points;
+                if (limit <= points) increment = 1;
+                for (long i = 0; i < limit; i += increment) {
+                    if (Double.isInfinite(fillPoint(i))) break;
+                }
+            }
+        } finally {
+            if (executor != null) executor.shutdownNow();
         }
-        return true;
     }
 
     /**
-     * Teeb täiendavaid mõõtmisi, et saada piisavas koguses ning ühtlasema jaotusega andmeid
+     * Mõõdab etteantud suurusega sisendi korral meetodi tööaega kaks korda. Ajapiirangu ületamisel salvestatakse
+     * sisendi suurus tsenseeritud vaatlusena. Jätkatava töö korral kasutatakse päevikusse salvestatud tulemust
+     *
+     * @param n sisendi suurus
+     * @return keskmine tööaeg, NaN kui käivitamine ebaõnnestus või lõpmatus, kui ajapiirang ületati
+     */
+    private double fillPoint(long n) {
+        Double known = journal != null ? journal.point(n) : null;
+        if (known != null) return known;
+        double time;
+        try {
+            time = Arrays.stream(measure(n, 2, timeout(pointTimeout, 2)).times).average().orElse(Double.NaN);
+        } catch (TimeoutException e) {
+            logger.warn("Sisendi suurusega {} läheb liiga kaua aega", n);
+            addTimeout(n, pointTimeout);
+            time = Double.POSITIVE_INFINITY;
+        } catch (ExecutionException e) {
+            return Double.NaN;
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new AnalysisException("Analüüs katkestati");
+        }
+        if (journal != null) journal.point(n, time);
+        return time;
+    }
+
+    /**
+     * Mõõdab ühtlaselt jaotatud punktid samaaegselt mitmes lõimes. Kasutatakse operatsioonide loendamisel, kus
+     * mõõtmised üksteist ei mõjuta. Lõimede arvu määrab seade measure.threads, vaikimisi protsessorituumade arv.
+     * Ajapiirangu ületamisel katkestatakse kõik pooleliolevad mõõtmised
      *
-     * @param method vaadeldav meetod
      * @param limit  suurim kasutatav sisendi väärtus
      * @param points mitu mõõtmist sooritada
      */
-    private void fillPoints(Method method, long limit, int points) {
-        ExecutorService executor = Executors.newFixedThreadPool(1);
+    private void fillPointsParallel(long limit, int points) {
+        List<ProbeThread> threads = new CopyOnWriteArrayList<>();
+        ExecutorService pool = Executors.newFixedThreadPool(Math.toIntExact(Config.valueAsLong("measure.threads",
+                (long) Runtime.getRuntime().availableProcessors())), r -> {
+            ProbeThread thread = new ProbeThread(r);
+            threads.add(thread);
+            return thread;
+        });
         long increment = limit / points;
         if (limit <= points) increment = 1;
+        Map<Long, Future<MethodRunner.Samples>> submitted = new LinkedHashMap<>();
         for (long i = 0; i < limit; i += increment) {
-            final long current_ = i;
-            Future<List<Long>> submit = executor.submit(() -> evaluateMethod(method, 2, current_));
+            final long n = i;
+            Double known = journal != null ? journal.point(n) : null;
+            if (known != null && Double.isInfinite(known)) break;
+            if (known != null) continue;
+            submitted.put(n, pool.submit(() -> {
+                ((ProbeThread) Thread.currentThread()).reset();
+                return runner.run(2, n);
+            }));
+        }
+        try {
+            for (Map.Entry<Long, Future<MethodRunner.Samples>> entry : submitted.entrySet()) {
+                try {
+                    MethodRunner.Samples measured = entry.getValue().get(timeout(pointTimeout, 2), TimeUnit.MILLISECONDS);
+                    record(entry.getKey(), measured);
+                    if (journal != null)
+                        journal.point(entry.getKey(), Arrays.stream(measured.times).average().orElse(Double.NaN));
+                } catch (TimeoutException e) {
+                    logger.warn("Sisendi suurusega {} läheb liiga kaua aega", entry.getKey());
+                    addTimeout(entry.getKey(), pointTimeout);
+                    if (journal != null) journal.point(entry.getKey(), Double.POSITIVE_INFINITY);
+                    threads.forEach(ProbeThread::cancel);
+                    break;
+                } catch (ExecutionException e) {
+                    logger.warn("Sisendi suurusega {} mõõtmine ebaõnnestus: {}", entry.getKey(), String.valueOf(e.getCause()));
+                }
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new AnalysisException("Analüüs katkestati");
+        } finally {
+            pool.shutdownNow();
+        }
+    }
+
+    /**
+     * Salvestab ajapiirangu ületanud mõõtmise. Operatsioonide loendamisel pole ajapiirangule vastav operatsioonide
+     * arv teada, seega salvestatakse see alumise piirita
+     *
+     * @param n      sisendi suurus
+     * @param factor ajapiirangu kordaja
+     */
+    private void addTimeout(long n, double factor) {
+        if (operations) results.addTime(n, null);
+        else results.addTimeout(n, factor * TIME_LIMIT);
+    }
+
+    /**
+     * Salvestab mõõtmiste tulemused
+     *
+     * @param n        sisendi suurus
+     * @param measured meetodi tööajad või operatsioonide arvud ning mälukasutus
+     */
+    private void record(long n, MethodRunner.Samples measured) {
+        for (double time : measured.times) {
+            if (printprogress)
+                logger.info("Sisendi suurusega {} kulus aega: {}", n, time);
+            results.addTime(n, time);
+        }
+        if (measured.bytes == null) return;
+        for (double bytes : measured.bytes) {
+            memory.addTime(n, bytes);
+        }
+    }
+
+    /**
+     * Mõõdab meetodi tööaega kas eraldi lõimes või eraldi JVM-is ning salvestab tulemused. Samas protsessis
+     * mõõtmisel katkestatakse ajapiirangu ületanud käivitus lõime lipu abil, mida instrumenteeritud kood kontrollib.
+     * Kui käivitus ei lõpe, jääb see lõime kinni hoidma ning järgmised mõõtmised tehakse uues lõimes. Eraldi JVM-is
+     * mõõtmisel lõpetatakse ajapiirangu ületanud protsess
+     *
+     * @param n       sisendi suurus
+     * @param times   mõõtmiste arv
+     * @param timeout ajapiirang millisekundites
+     * @return meetodi tööajad millisekundites ning mälukasutus
+     */
+    private MethodRunner.Samples measure(long n, int times, long timeout) throws TimeoutException, ExecutionException, InterruptedException {
+        MethodRunner.Samples measured;
+        if (job != null) {
+            measured = JvmWorkerPool.shared().measure(job, n, times, timeout);
+        } else {
+            if (executor == null) executor = Executors.newFixedThreadPool(1, r -> probe = new ProbeThread(r));
+            Future<MethodRunner.Samples> submit = executor.submit(() -> {
+                probe.reset();
+                return runner.run(times, n);
+            });
             try {
-                submit.get(10 * TIME_LIMIT, TimeUnit.MILLISECONDS);
-            } catch (TimeoutException | ExecutionException | InterruptedException e) {
-                submit.cancel(true);
-                if (e instanceof TimeoutException) {
-                    logger.error("Sisendi suurusega {} läheb liiga kaua aega", i);
-                    System.exit(1);
+                measured = submit.get(timeout, TimeUnit.MILLISECONDS);
+            } catch (TimeoutException | InterruptedException e) {
+                if (!cancellable || !probe.cancel(submit, TIME_LIMIT)) {
+                    submit.cancel(true);
+                    executor.shutdownNow();
+                    executor = null;
                 }
+                throw e;
             }
         }
-        executor.shutdownNow();
+        record(n, measured);
+        return measured;
+    }
+
+    /**
+     * Leiab mõõtmiste ajapiirangu. Piirang on käivituste arvuga võrdeline, soojenduskäivitused kaasa arvatud
+     *
+     * @param factor mitu korda võib üks käivitus ületada seadega function.goal.time määratud aega
+     * @param times  mõõdetavate käivituste arv
+     * @return ajapiirang millisekundites
+     */
+    private long timeout(double factor, int times) {
+        return (long) Math.ceil(factor * TIME_LIMIT * runner.invocations(times));
     }
 
     /**
      * Kasutab topelkahendotsingut et leida, millise sisendi suurusega võtab meetodi käivitus seadetes määratud hulgal
-     * aega
+     * aega. Otsingu olek salvestatakse pärast igat sammu töö päevikusse, jätkatava töö korral jätkatakse sealt
      *
      * @param method vaadeldav meetod
      * @param times  mitu korda sama sisendi suuruse mõõtmisi teha
@@ -254,103 +449,53 @@ public class JavaExecutor extends FunctionExecutor {
      * @return sisendi suurus, mille korral käivitusaeg oli seadetes määratud piirides
      */
     private long findMaxArgument(final Method method, final int times, final long minN, final long maxN) {
-        GuessProvider guessProvider = new GuessProvider(minN, maxN);
-        ExecutorService executor = Executors.newFixedThreadPool(1);
-        while (true) {
+        GuessProvider guessProvider = journal != null && journal.search() != null ? journal.search()
+                : operations ? new GuessProvider(minN, maxN, Config.valueAsLong("function.goal.ops", 10000000L))
+                : new GuessProvider(minN, maxN);
+        while (!guessProvider.isFinished()) {
             final long current = guessProvider.getCurrent();
-            Future<List<Long>> submit = executor.submit(() -> evaluateMethod(method, times, current));
             double average;
             try {
-                List<Long> longs = submit.get(5 * TIME_LIMIT, TimeUnit.MILLISECONDS);
-                average = longs.stream().mapToLong(Long::new).average().orElse(Double.MAX_VALUE);
-            } catch (TimeoutException | InterruptedException e) {
+                average = Arrays.stream(measure(current, times, timeout(searchTimeout, times)).times).average().orElse(Double.MAX_VALUE);
+            } catch (TimeoutException e) {
                 average = Double.MAX_VALUE;
-                results.addTime(current, null);
-                submit.cancel(true);
+                addTimeout(current, searchTimeout);
+            } catch (InterruptedException e) {
+                if (executor != null) executor.shutdownNow();
+                executor = null;
+                Thread.currentThread().interrupt();
+                throw new AnalysisException("Analüüs katkestati");
             } catch (ExecutionException e) {
-                logger.error("Funktsiooni käivitamine ebaõnnestus: {}", e.getMessage());
+                Throwable cause = e.getCause();
+                logger.error("Funktsiooni käivitamine ebaõnnestus: {}", cause.getCause() != null ? String.valueOf(cause.getCause()) : cause.getMessage());
                 Class<?>[] parameterTypes = method.getParameterTypes();
                 if (parameterTypes.length > 0)
                     logger.error("Oodati parameetrit {}", parameterTypes[0].getName());
                 else logger.error("Funktsioon peaks võtma ühe parameetri");
-                logger.error("DataGen.java getInput andis tüübi {}", inputProvider.apply(0L).getClass());
-                System.exit(1);
-                average = Double.MAX_VALUE; // for compiler
+                logger.error("DataGen.java getInput andis tüübi {}", inputs.generate(0L).getClass());
+                if (executor != null) executor.shutdownNow();
+                executor = null;
+                throw new AnalysisException("Funktsiooni käivitamine ebaõnnestus");
             }
 
-            if (guessProvider.findNext(average)) {
-                break;
-            }
+            guessProvider.findNext(average);
+            if (journal != null) journal.search(guessProvider);
         }
-        executor.shutdownNow();
         return guessProvider.getCurrent();
     }
 
     /**
-     * Käivitab etteantud meetodit küsitud arv kordi
-     *
-     * @param method vaadeldav meetod
-     * @param times  mõõtmiste arv
-     * @param n      sisendi suurus
-     * @return meetodi tööaegade järjend
-     */
-    private List<Long> evaluateMethod(Method method, int times, long n) throws InvocationTargetException, IllegalAccessException {
-        List<Long> results = new ArrayList<>();
-        for (int i = 0; i < times; i++) {
-            results.add(evaluateMethodOnce(method, n));
-        }
-        return results;
-    }
-
-    /**
-     * Käivitab meetodit etteantud suuruse sisendiga ning mõõdab selle tööaega
-     *
-     * @param method vaadeldav meetod
-     * @param n      sisendi suurus
-     * @return meetodi tööaeg
-     */
-    private long evaluateMethodOnce(Method method, long n) throws InvocationTargetException, IllegalAccessException {
-        long time = System.currentTimeMillis();
-        method.invoke(null, getInput(n));
-        long timeSpent = System.currentTimeMillis() - time;
-        if (printprogress)
-            logger.info("Sisendi suurusega {} kulus aega: {}", n, timeSpent);
-        results.addTime(n, timeSpent);
-        return timeSpent;
-    }
-
-    /**
-     * Käivitab meetodit etteantud suuruse sisendiga ning mõõdab selle tööaega
-     * Erineb meetodist evaluateMethodOnce selle poolest, et tööaega ei tagastata, see ainult salvestatakse
-     * Selle asemel tagastatakse käivitatud meetodi tagastusväärtus. Edasiarenduses saaks selle kaudu lisada väljundi
-     * kontrollimist
+     * Käivitab testjuhu meetodi ning salvestab selle tööaja sisendi suuruse juurde. Aega mõõdetakse monotoonse
+     * kellaga System.nanoTime, seega ei mõjuta seda süsteemikella muutmine ning lühike tööaeg ei ümardu millisekundini
      *
-     * @param method vaadeldav meetod
-     * @param size   sisendi suurus
+     * @param size sisendi suurus
      * @return meetodi tagastusväärtus
      */
-    private Object timeMethod(Method method, long size) throws InvocationTargetException, IllegalAccessException {
-        List<Object> args = new ArrayList<>();
-        for (Class<?> ignored : method.getParameterTypes()) {
-            args.add(null);
-        }
-        long time = System.currentTimeMillis();
-        Object output = method.invoke(null, args.toArray());
-        long timeSpent = System.currentTimeMillis() - time;
+    private Object timeMethod(long size) throws InvocationTargetException {
+        long time = System.nanoTime();
+        Object output = runner.invoke(null);
+        double timeSpent = (System.nanoTime() - time) / 1e6;
         results.addTime(size, timeSpent);
         return output;
     }
-
-    /**
-     * Kasutab faili DataGen.java meetodit getInput, et koostada funktsioonile sisendväärtus.
-     * Kui sellist faili või meetodit ei leidu, tagastatakse sisendi suurus
-     *
-     * @param n sisendi suurus
-     * @return sisendi väärtus
-     */
-    private Object getInput(long n) {
-        return inputProvider.apply(n);
-    }
-
-
 }
@@ -0,0 +1,342 @@
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.Closeable;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.ObjectInputStream;
+import java.io.ObjectOutputStream;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.regex.Pattern;
+
+/**
+ * Klass Journal salvestab analüüsi käigu faili, et katkenud analüüsi saaks samast kohast jätkata. Seadega job.id
+ * määratakse töö tunnus, päevik asub failis job.dir/&lt;job.id&gt;.journal. Päevikusse lisatakse iga mõõtmine (vt
+ * ResultHolder), topeltkahendotsingu olek pärast igat sammu, leitud suurim sisendi suurus ning iga täiendava punkti
+ * tulemus. Sama tunnusega uuesti käivitamisel loetakse päevik sisse ning juba mõõdetud sisendi suurusi uuesti ei
+ * mõõdeta, katkestamise hetkel pooleli olnud mõõtmine tehakse uuesti.
+ * <p>
+ * Faili päises on sama võti, mida kasutab vahemälu (vt ResultCache). Kui esitus, sisendi genereerija või seaded on
+ * muutunud, alustatakse tühja päevikuga. Iga kirje sisaldab sammu järjekorranumbrit: otsingu olek, suurim sisendi
+ * suurus ning punkti tulemus lõpetavad sammu, mõõtmised kuuluvad järgmisena lõpetatavale sammule. Sisselugemisel
+ * kasutatakse mõõtmisi ainult lõpetatud sammudest ning juba loetud sammu korduvad kirjed jäetakse vahele, seega ei
+ * lähe uuesti tehtud mõõtmine kahekordselt arvesse.
+ */
+public class Journal implements Closeable {
+    private static final Logger logger = LoggerFactory.getLogger(Journal.class);
+    private static final int MAGIC = 0x544a4e31;
+    private static final Pattern ID = Pattern.compile("[A-Za-z0-9_-]+");
+    private static final byte TIME = 1;
+    private static final byte MISSING = 2;
+    private static final byte TIMEOUT = 3;
+    private static final byte SEARCH = 4;
+    private static final byte LIMIT = 5;
+    private static final byte POINT = 6;
+
+    private final FileChannel channel;
+    private final Map<Long, Double> points = new HashMap<>();
+    private GuessProvider search;
+    private Long limit;
+    private int step = 0;
+
+    private Journal(Path file) throws IOException {
+        channel = FileChannel.open(file, StandardOpenOption.CREATE, StandardOpenOption.READ, StandardOpenOption.WRITE);
+    }
+
+    /**
+     * Kontrollib, et töö tunnust saab kasutada faili nimena
+     *
+     * @param id töö tunnus
+     * @return sama tunnus
+     * @throws AnalysisException kui tunnus sisaldab muid märke kui tähed, numbrid, '-' ja '_'
+     */
+    public static String checkId(String id) {
+        if (!ID.matcher(id).matches()) {
+            throw new AnalysisException("Seadistuse probleem: job.id tohib sisaldada ainult tähti, numbreid, '-' ja " +
+                    "'_', aga on '" + id + "'");
+        }
+        return id;
+    }
+
+    /**
+     * Avab töö päeviku, taastab sellest tulemuste hoidlad ning seob need päevikuga
+     *
+     * @param id      töö tunnus (seade job.id)
+     * @param key     analüüsi võti (vt ResultCache.key), teise võtmega päevik kustutatakse
+     * @param holders tulemuste hoidlad, mille järjekord peab kõigil käivitustel olema sama
+     * @return päevik või null, kui seda ei õnnestunud avada
+     */
+    public static Journal open(String id, String key, ResultHolder... holders) {
+        Path file = Paths.get(Config.valueAsString("job.dir", "."), checkId(id) + ".journal");
+        try {
+            Journal journal = new Journal(file);
+            journal.replay(key, holders);
+            for (int i = 0; i < holders.length; i++) {
+                holders[i].journal(journal, i);
+            }
+            return journal;
+        } catch (IOException | ClassNotFoundException e) {
+            logger.warn("Töö päevikut {} ei õnnestunud avada: {}", file, String.valueOf(e));
+            return null;
+        }
+    }
+
+    /**
+     * Loeb päeviku sisse. Poolikult kirjutatud viimane kirje ning lõpetamata sammu mõõtmised eemaldatakse
+     *
+     * @param key     analüüsi võti
+     * @param holders tulemuste hoidlad
+     */
+    private void replay(String key, ResultHolder[] holders) throws IOException, ClassNotFoundException {
+        byte[] bytes = new byte[Math.toIntExact(channel.size())];
+        ByteBuffer buffer = ByteBuffer.wrap(bytes);
+        while (buffer.hasRemaining()) {
+            if (channel.read(buffer, buffer.position()) < 0) break;
+        }
+        DataInputStream in = new DataInputStream(new ByteArrayInputStream(bytes));
+        if (!header(in, key)) {
+            if (bytes.length > 0) logger.info("Töö päevik on teise esituse või seadete oma, alustatakse algusest");
+            channel.truncate(0);
+            ByteArrayOutputStream header = new ByteArrayOutputStream();
+            DataOutputStream out = new DataOutputStream(header);
+            out.writeInt(MAGIC);
+            out.writeUTF(key);
+            write(header.toByteArray(), 0);
+            return;
+        }
+        int valid = bytes.length - in.available();
+        int records = 0;
+        int duplicates = 0;
+        List<Runnable> pending = new ArrayList<>();
+        try {
+            while (in.available() > 0) {
+                byte type = in.readByte();
+                int sequence = in.readInt();
+                if (sequence > step) throw new EOFException("Vahele jäänud samm " + step);
+                boolean current = sequence == step;
+                switch (type) {
+                    case TIME: {
+                        int holder = in.readByte();
+                        long n = in.readLong();
+                        double value = in.readDouble();
+                        if (current) pending.add(() -> holders[holder].addTime(n, value));
+                        break;
+                    }
+                    case MISSING: {
+                        int holder = in.readByte();
+                        long n = in.readLong();
+                        if (current) pending.add(() -> holders[holder].addTime(n, null));
+                        break;
+                    }
+                    case TIMEOUT: {
+                        int holder = in.readByte();
+                        long n = in.readLong();
+                        double value = in.readDouble();
+                        if (current) pending.add(() -> holders[holder].addTimeout(n, value));
+                        break;
+                    }
+                    case SEARCH: {
+                        byte[] state = new byte[in.readInt()];
+                        in.readFully(state);
+                        if (current) {
+                            try (ObjectInputStream objects = new ObjectInputStream(new ByteArrayInputStream(state))) {
+                                search = (GuessProvider) objects.readObject();
+                            }
+                        }
+                        break;
+                    }
+                    case LIMIT: {
+                        long n = in.readLong();
+                        if (current) limit = n;
+                        break;
+                    }
+                    case POINT: {
+                        long n = in.readLong();
+                        double value = in.readDouble();
+                        if (current) points.put(n, value);
+                        break;
+                    }
+                    default:
+                        throw new EOFException("Tundmatu kirje " + type);
+                }
+                if (!current) {
+                    duplicates++;
+                } else if (type == SEARCH || type == LIMIT || type == POINT) {
+                    pending.forEach(Runnable::run);
+                    records += pending.size() + 1;
+                    pending.clear();
+                    step++;
+                    valid = bytes.length - in.available();
+                }
+            }
+        } catch (EOFException e) {
+            logger.warn("Töö päeviku lõpus on poolik kirje, see eemaldatakse");
+        }
+        if (!pending.isEmpty()) logger.info("Pooleli jäänud sammu {} mõõtmist tehakse uuesti", pending.size());
+        if (duplicates > 0) logger.warn("Töö päevikus oli {} korduvat kirjet, need jäeti vahele", duplicates);
+        channel.truncate(valid);
+        channel.position(valid);
+        if (records > 0) logger.info("Töö päevikust taastati {} kirjet", records);
+    }
+
+    /**
+     * Loeb päeviku päise
+     *
+     * @param in  päeviku sisu
+     * @param key oodatav analüüsi võti
+     * @return kas päis on olemas ning võti on sama
+     */
+    private static boolean header(DataInputStream in, String key) {
+        try {
+            return in.readInt() == MAGIC && in.readUTF().equals(key);
+        } catch (IOException e) {
+            return false;
+        }
+    }
+
+    /**
+     * @return viimane salvestatud topeltkahendotsingu olek või null, kui otsingut pole alustatud
+     */
+    public GuessProvider search() {
+        return search;
+    }
+
+    /**
+     * @return salvestatud suurim kasutatav sisendi suurus või null, kui otsing pole lõppenud
+     */
+    public Long limit() {
+        return limit;
+    }
+
+    /**
+     * @param n sisendi suurus
+     * @return täiendava punkti salvestatud tulemus või null, kui punkti pole mõõdetud
+     */
+    public Double point(long n) {
+        return points.get(n);
+    }
+
+    /**
+     * Salvestab topeltkahendotsingu oleku pärast sammu
+     *
+     * @param state otsingu olek
+     */
+    public void search(GuessProvider state) {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        try (ObjectOutputStream out = new ObjectOutputStream(bytes)) {
+            out.writeObject(state);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        byte[] serialized = bytes.toByteArray();
+        append(SEARCH, out -> {
+            out.writeInt(serialized.length);
+            out.write(serialized);
+        });
+    }
+
+    /**
+     * Salvestab otsingu tulemusena leitud suurima kasutatava sisendi suuruse
+     *
+     * @param n sisendi suurus
+     */
+    public void limit(long n) {
+        append(LIMIT, out -> out.writeLong(n));
+    }
+
+    /**
+     * Salvestab täiendava punkti tulemuse
+     *
+     * @param n     sisendi suurus
+     * @param value keskmine tööaeg, NaN või lõpmatus nagu mõõtmisel
+     */
+    public void point(long n, double value) {
+        append(POINT, out -> {
+            out.writeLong(n);
+            out.writeDouble(value);
+        });
+    }
+
+    /**
+     * Salvestab mõõtmise, kutsutakse välja klassist ResultHolder
+     *
+     * @param holder hoidla järjekorranumber
+     * @param n      sisendi suurus
+     * @param value  mõõtmistulemus, null kui see puudub
+     */
+    void time(int holder, long n, Double value) {
+        append(value == null ? MISSING : TIME, out -> {
+            out.writeByte(holder);
+            out.writeLong(n);
+            if (value != null) out.writeDouble(value);
+        });
+    }
+
+    /**
+     * Salvestab ajapiirangu ületanud mõõtmise, kutsutakse välja klassist ResultHolder
+     *
+     * @param holder hoidla järjekorranumber
+     * @param n      sisendi suurus
+     * @param limit  ületatud ajapiirang
+     */
+    void timeout(int holder, long n, double limit) {
+        append(TIMEOUT, out -> {
+            out.writeByte(holder);
+            out.writeLong(n);
+            out.writeDouble(limit);
+        });
+    }
+
+    /**
+     * Lisab kirje koos sammu järjekorranumbriga faili lõppu ning kirjutab selle kettale, et protsessi lõpetamisel
+     * kirje ei kaoks. Otsingu oleku, suurima sisendi suuruse ning punkti kirje lõpetavad sammu
+     *
+     * @param type   kirje tüüp
+     * @param record kirje sisu koostaja
+     */
+    private synchronized void append(byte type, Record record) {
+        try {
+            ByteArrayOutputStream bytes = new ByteArrayOutputStream(32);
+            DataOutputStream out = new DataOutputStream(bytes);
+            out.writeByte(type);
+            out.writeInt(step);
+            record.write(out);
+            write(bytes.toByteArray(), channel.position());
+            if (type == SEARCH || type == LIMIT || type == POINT) step++;
+        } catch (IOException e) {
+            logger.warn("Töö päevikusse kirjutamine ebaõnnestus: {}", String.valueOf(e));
+        }
+    }
+
+    private void write(byte[] bytes, long position) throws IOException {
+        ByteBuffer buffer = ByteBuffer.wrap(bytes);
+        channel.position(position);
+        while (buffer.hasRemaining()) {
+            channel.write(buffer);
+        }
+        channel.force(false);
+    }
+
+    @Override
+    public void close() throws IOException {
+        channel.close();
+    }
+
+    private interface Record {
+        void write(DataOutputStream out) throws IOException;
+    }
+}
@@ -0,0 +1,207 @@
+import java.io.*;
+import java.lang.reflect.Method;
+import java.lang.reflect.Modifier;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Properties;
+
+/**
+ * Klass JvmWorker on eraldi JVM-is töötava mõõtja käivitusklass. Protsess loeb standardsisendist käske ning kirjutab
+ * vastused standardväljundisse kahendkujul (DataInputStream/DataOutputStream). Vaadeldava programmi väljund suunatakse
+ * veaväljundisse, et see protokolli ei rikuks.
+ * <p>
+ * Käsud:
+ * <ul>
+ * <li>LOAD: klasside arv, iga klassi nimi, pikkus ja baidid; klassi nimi; meetodi nimi; parameetrite arv ning tüüpide
+ * nimed; DataGen võti; DataGen klassid samal kujul; seadete ülekatte kirjete arv ning iga kirje nimi ja väärtus.
+ * Vastust ei saadeta, laadimise viga tagastatakse järgmisel mõõtmisel</li>
+ * <li>MEASURE: sisendi suurus (long) ning mõõtmiste arv (int). Vastuseks OK, tööaegade arv, tööajad (double), kas
+ * mälukasutus on mõõdetud (boolean) ning mälukasutus (double) või ERROR ja veateade</li>
+ * </ul>
+ * Käivitumise järel saadab protsess ühe READY baidi.
+ */
+public class JvmWorker {
+    static final byte LOAD = 1;
+    static final byte MEASURE = 2;
+    static final byte READY = 10;
+    static final byte OK = 11;
+    static final byte ERROR = 12;
+
+    private final Map<String, InputPool> inputPools = new HashMap<>();
+    private MethodRunner runner;
+    private String loadError = "Klassi pole laaditud";
+
+    public static void main(String[] args) throws IOException, ClassNotFoundException {
+        DataInputStream in = new DataInputStream(new BufferedInputStream(System.in));
+        DataOutputStream out = new DataOutputStream(new BufferedOutputStream(new FileOutputStream(FileDescriptor.out)));
+        System.setOut(System.err);
+        System.setIn(new ByteArrayInputStream(new byte[0]));
+        // mõõtmisel kasutatavad klassid laaditakse enne valmisolekust teatamist
+        Class.forName(MethodRunner.class.getName(), true, JvmWorker.class.getClassLoader());
+        Class.forName(InputPool.class.getName(), true, JvmWorker.class.getClassLoader());
+        Class.forName(InMemoryCompiler.InMemoryClassLoader.class.getName(), true, JvmWorker.class.getClassLoader());
+        out.writeByte(READY);
+        out.flush();
+        new JvmWorker().serve(in, out);
+    }
+
+    /**
+     * Täidab käske, kuni sisend lõpeb
+     *
+     * @param in  käskude voog
+     * @param out vastuste voog
+     */
+    private void serve(DataInputStream in, DataOutputStream out) throws IOException {
+        while (true) {
+            byte command;
+            try {
+                command = in.readByte();
+            } catch (EOFException e) {
+                return;
+            }
+            switch (command) {
+                case LOAD:
+                    load(in);
+                    break;
+                case MEASURE:
+                    long n = in.readLong();
+                    int times = in.readInt();
+                    measure(out, n, times);
+                    break;
+                default:
+                    throw new IOException("Tundmatu käsk " + command);
+            }
+        }
+    }
+
+    /**
+     * Loeb klassid ning seob vaadeldava meetodi ja sisendi genereerija
+     *
+     * @param in käskude voog
+     */
+    private void load(DataInputStream in) throws IOException {
+        Map<String, byte[]> classes = readClasses(in);
+        String className = in.readUTF();
+        String methodName = in.readUTF();
+        String[] parameterTypes = new String[in.readInt()];
+        for (int i = 0; i < parameterTypes.length; i++) {
+            parameterTypes[i] = in.readUTF();
+        }
+        String dataGenKey = in.readUTF();
+        Map<String, byte[]> dataGen = readClasses(in);
+        Properties overrides = new Properties();
+        int count = in.readInt();
+        for (int i = 0; i < count; i++) {
+            overrides.setProperty(in.readUTF(), in.readUTF());
+        }
+        // mõõtja loeb seaded loomisel, seega kehtib analüüsi ülekate kõigile selle mõõtmistele
+        Config.setOverrides(overrides);
+        runner = null;
+        try {
+            Method method = findMethod(new InMemoryCompiler.InMemoryClassLoader(classes).loadClass(className), methodName, parameterTypes);
+            InputPool inputs = inputPools.get(dataGenKey);
+            if (inputs == null) {
+                InputPool.dropStale(inputPools, dataGenKey);
+                inputs = new InputPool(dataGen.isEmpty() ? aLong -> aLong
+                        : MethodRunner.inputProvider(new InMemoryCompiler.InMemoryClassLoader(dataGen).loadClass("DataGen")));
+                inputPools.put(dataGenKey, inputs);
+            }
+            runner = new MethodRunner(Invoker.bind(method), inputs);
+        } catch (Exception e) {
+            loadError = "Klassi laadimine ebaõnnestus: " + e;
+        }
+    }
+
+    /**
+     * Mõõdab meetodi tööaega ning saadab tulemuse
+     *
+     * @param out   vastuste voog
+     * @param n     sisendi suurus
+     * @param times mõõtmiste arv
+     */
+    private void measure(DataOutputStream out, long n, int times) throws IOException {
+        if (runner == null) {
+            out.writeByte(ERROR);
+            out.writeUTF(loadError);
+        } else {
+            try {
+                MethodRunner.Samples samples = runner.run(times, n);
+                out.writeByte(OK);
+                out.writeInt(samples.times.length);
+                for (double result : samples.times) {
+                    out.writeDouble(result);
+                }
+                out.writeBoolean(samples.bytes != null);
+                if (samples.bytes != null) {
+                    for (double bytes : samples.bytes) {
+                        out.writeDouble(bytes);
+                    }
+                }
+            } catch (Throwable e) {
+                Throwable cause = e.getCause() != null ? e.getCause() : e;
+                out.writeByte(ERROR);
+                out.writeUTF(String.valueOf(cause));
+            }
+        }
+        out.flush();
+    }
+
+    /**
+     * Leiab klassist etteantud nime ning parameetritüüpidega avaliku staatilise meetodi
+     *
+     * @param target         vaadeldav klass
+     * @param name           meetodi nimi
+     * @param parameterTypes parameetrite tüüpide nimed
+     * @return leitud meetod
+     */
+    private static Method findMethod(Class<?> target, String name, String[] parameterTypes) throws NoSuchMethodException {
+        for (Method method : target.getDeclaredMethods()) {
+            if (!Modifier.isPublic(method.getModifiers()) || !Modifier.isStatic(method.getModifiers())) continue;
+            if (!method.getName().equals(name)) continue;
+            if (Arrays.equals(typeNames(method), parameterTypes)) return method;
+        }
+        throw new NoSuchMethodException(name);
+    }
+
+    /**
+     * @param method meetod
+     * @return meetodi parameetrite tüüpide nimed
+     */
+    static String[] typeNames(Method method) {
+        return Arrays.stream(method.getParameterTypes()).map(Class::getName).toArray(String[]::new);
+    }
+
+    /**
+     * Loeb voost klasside nimed ja baidid
+     *
+     * @param in käskude voog
+     * @return klasside baidid nime järgi
+     */
+    private static Map<String, byte[]> readClasses(DataInputStream in) throws IOException {
+        int count = in.readInt();
+        Map<String, byte[]> classes = new HashMap<>();
+        for (int i = 0; i < count; i++) {
+            String name = in.readUTF();
+            byte[] bytes = new byte[in.readInt()];
+            in.readFully(bytes);
+            classes.put(name, bytes);
+        }
+        return classes;
+    }
+
+    /**
+     * Kirjutab voogu klasside nimed ja baidid
+     *
+     * @param out     käskude voog
+     * @param classes klasside baidid nime järgi
+     */
+    static void writeClasses(DataOutputStream out, Map<String, byte[]> classes) throws IOException {
+        out.writeInt(classes.size());
+        for (Map.Entry<String, byte[]> entry : classes.entrySet()) {
+            out.writeUTF(entry.getKey());
+            out.writeInt(entry.getValue().length);
+            out.write(entry.getValue());
+        }
+    }
+}
@@ -0,0 +1,273 @@
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.*;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.nio.file.Paths;
+import java.util.*;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Klass JvmWorkerPool haldab eelnevalt käivitatud JVM-e, milles mõõtmisi teha. Töötajaga suheldakse torude kaudu
+ * klassis JvmWorker kirjeldatud protokolliga. Ajapiirangu ületanud töötaja protsess lõpetatakse kohe ning selle asemele
+ * käivitatakse taustal uus, seega katkestamata jäänud käivitus protsessorit ei koorma.
+ */
+public class JvmWorkerPool {
+    private static final Logger logger = LoggerFactory.getLogger(JvmWorkerPool.class);
+    private static JvmWorkerPool shared;
+    private final BlockingQueue<Worker> idle = new LinkedBlockingQueue<>();
+    private final Set<Worker> workers = ConcurrentHashMap.newKeySet();
+    private final AtomicInteger starting = new AtomicInteger();
+    private final AtomicInteger busy = new AtomicInteger();
+    private final ExecutorService background = Executors.newCachedThreadPool(Config.sharedThreads("jvm-worker"));
+    private final List<String> command = new ArrayList<>();
+
+    /**
+     * Käivitab taustal etteantud arvu töötajaid
+     *
+     * @param count töötajate arv
+     */
+    private JvmWorkerPool(int count) {
+        command.add(Paths.get(System.getProperty("java.home"), "bin", "java").toString());
+        String options = Config.valueAsString("worker.jvm.options", "").trim();
+        if (!options.isEmpty()) command.addAll(Arrays.asList(options.split("\\s+")));
+        command.add("-cp");
+        command.add(System.getProperty("java.class.path"));
+        command.add(JvmWorker.class.getName());
+        for (int i = 0; i < count; i++) {
+            starting.incrementAndGet();
+            background.submit(this::spawn);
+        }
+        Runtime.getRuntime().addShutdownHook(new Thread(() -> workers.forEach(Worker::destroy)));
+    }
+
+    /**
+     * Tagastab protsessi ühise töötajate kogumi, luues selle esimesel pöördumisel. Töötajate arvu määrab seade
+     * worker.count, vaikimisi protsessorituumade arv
+     *
+     * @return töötajate kogum
+     */
+    public static synchronized JvmWorkerPool shared() {
+        if (shared == null) {
+            shared = new JvmWorkerPool(Math.toIntExact(Config.valueAsLong("worker.count",
+                    (long) Runtime.getRuntime().availableProcessors())));
+        }
+        return shared;
+    }
+
+    /**
+     * Käivitab uue töötaja ning lisab selle vabade hulka, kui see on valmis
+     */
+    private void spawn() {
+        Worker worker = null;
+        try {
+            worker = new Worker(new ProcessBuilder(command).redirectError(ProcessBuilder.Redirect.INHERIT).start());
+            workers.add(worker);
+            if (worker.output.readByte() != JvmWorker.READY) throw new IOException("Töötaja ei teatanud valmisolekust");
+            idle.add(worker);
+        } catch (IOException e) {
+            logger.error("Mõõtmise JVM-i käivitamine ebaõnnestus", e);
+            if (worker != null) {
+                worker.destroy();
+                workers.remove(worker);
+            }
+        } finally {
+            starting.decrementAndGet();
+        }
+    }
+
+    /**
+     * Võtab vaba töötaja. Kui kõik töötajad on hõivatud, oodatakse, kuni mõni vabaneb või asendatakse, sest hõivatud
+     * töötaja mõõtmisel on oma ajapiirang. Käivitumise ootamisele kehtib seade worker.start.timeout, mille arvestus
+     * algab hetkest, kui ükski töötaja hõivatud ei ole
+     *
+     * @return vaba töötaja
+     * @throws AnalysisException kui ühtegi töötajat ei õnnestunud käivitada
+     */
+    private Worker acquire() throws InterruptedException {
+        long startTimeout = Config.valueAsLong("worker.start.timeout", 60000L);
+        long deadline = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(startTimeout);
+        while (true) {
+            Worker worker = idle.poll(100, TimeUnit.MILLISECONDS);
+            if (worker != null) {
+                busy.incrementAndGet();
+                return worker;
+            }
+            if (busy.get() > 0) {
+                deadline = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(startTimeout);
+            } else if (idle.isEmpty() && (starting.get() == 0 || System.nanoTime() - deadline > 0)) {
+                throw new AnalysisException("Mõõtmise JVM-i ei õnnestunud käivitada");
+            }
+        }
+    }
+
+    /**
+     * Tagastab töötaja vabade hulka
+     *
+     * @param worker mõõtmise lõpetanud töötaja
+     */
+    private void release(Worker worker) {
+        idle.add(worker);
+        busy.decrementAndGet();
+    }
+
+    /**
+     * Asendab töötaja uuega. Vana protsess lõpetatakse kohe, uus käivitatakse taustal
+     *
+     * @param worker asendatav töötaja
+     */
+    private void replace(Worker worker) {
+        worker.destroy();
+        workers.remove(worker);
+        starting.incrementAndGet();
+        busy.decrementAndGet();
+        background.submit(this::spawn);
+    }
+
+    /**
+     * Mõõdab vabas töötajas meetodi tööaega. Kui töötaja vajab teist klassi, saadetakse see enne mõõtmist
+     *
+     * @param job     mõõdetav meetod
+     * @param n       sisendi suurus
+     * @param times   mõõtmiste arv
+     * @param timeout ajapiirang millisekundites
+     * @return meetodi tööajad millisekundites ning mälukasutus
+     * @throws TimeoutException   kui ajapiirang ületati, töötaja on sel juhul lõpetatud
+     * @throws ExecutionException kui meetodi käivitamine või töötajaga suhtlemine ebaõnnestus
+     */
+    public MethodRunner.Samples measure(Job job, long n, int times, long timeout) throws TimeoutException, ExecutionException, InterruptedException {
+        Worker worker = acquire();
+        Future<MethodRunner.Samples> response = null;
+        try {
+            if (worker.job != job) {
+                worker.load(job);
+            }
+            worker.input.writeByte(JvmWorker.MEASURE);
+            worker.input.writeLong(n);
+            worker.input.writeInt(times);
+            worker.input.flush();
+            response = background.submit(worker::readResponse);
+            MethodRunner.Samples result = response.get(timeout, TimeUnit.MILLISECONDS);
+            release(worker);
+            return result;
+        } catch (ExecutionException e) {
+            if (e.getCause() instanceof InvocationTargetException) {
+                release(worker);
+            } else {
+                replace(worker);
+            }
+            throw e;
+        } catch (TimeoutException | InterruptedException e) {
+            replace(worker);
+            response.cancel(true);
+            throw e;
+        } catch (IOException e) {
+            replace(worker);
+            throw new ExecutionException(e);
+        }
+    }
+
+    /**
+     * Mõõdetava meetodi kirjeldus, mille põhjal töötaja klassi laadib
+     */
+    public static final class Job {
+        private final Map<String, byte[]> classes;
+        private final String className;
+        private final String methodName;
+        private final String[] parameterTypes;
+        private final String dataGenKey;
+        private final Map<String, byte[]> dataGen;
+        private final Properties overrides = Config.overrides();
+
+        /**
+         * Koostab kirjelduse, mis sisaldab ka praeguse lõime seadete ülekatet
+         *
+         * @param classes    vaadeldava faili kompileeritud klassid
+         * @param className  vaadeldava klassi nimi
+         * @param method     mõõdetav meetod
+         * @param dataGenKey sisendi genereerija tunnus (vt InputPool.key), sama tunnusega genereerija sisendeid
+         *                   hoitakse töötajas ühes hoidlas, sama faili varasema sisuga hoidlad eemaldatakse
+         * @param dataGen    klassi DataGen kompileeritud klassid, tühi kui sisendiks on sisendi suurus
+         */
+        public Job(Map<String, byte[]> classes, String className, Method method, String dataGenKey, Map<String, byte[]> dataGen) {
+            this.classes = classes;
+            this.className = className;
+            this.methodName = method.getName();
+            this.parameterTypes = JvmWorker.typeNames(method);
+            this.dataGenKey = dataGenKey;
+            this.dataGen = dataGen;
+        }
+    }
+
+    /**
+     * Ühe töötaja protsess ning selle vood
+     */
+    private static final class Worker {
+        private final Process process;
+        private final DataOutputStream input;
+        private final DataInputStream output;
+        private Job job;
+
+        private Worker(Process process) {
+            this.process = process;
+            this.input = new DataOutputStream(new BufferedOutputStream(process.getOutputStream()));
+            this.output = new DataInputStream(new BufferedInputStream(process.getInputStream()));
+        }
+
+        /**
+         * Saadab töötajale mõõdetava meetodi klassid
+         *
+         * @param job mõõdetav meetod
+         */
+        private void load(Job job) throws IOException {
+            input.writeByte(JvmWorker.LOAD);
+            JvmWorker.writeClasses(input, job.classes);
+            input.writeUTF(job.className);
+            input.writeUTF(job.methodName);
+            input.writeInt(job.parameterTypes.length);
+            for (String type : job.parameterTypes) {
+                input.writeUTF(type);
+            }
+            input.writeUTF(job.dataGenKey);
+            JvmWorker.writeClasses(input, job.dataGen);
+            Set<String> names = job.overrides.stringPropertyNames();
+            input.writeInt(names.size());
+            for (String name : names) {
+                input.writeUTF(name);
+                input.writeUTF(job.overrides.getProperty(name));
+            }
+            this.job = job;
+        }
+
+        /**
+         * Loeb mõõtmise vastuse. Meetodi käivitamise viga edastatakse InvocationTargetException sees
+         *
+         * @return meetodi tööajad millisekundites ning mälukasutus
+         */
+        private MethodRunner.Samples readResponse() throws IOException, InvocationTargetException {
+            byte status = output.readByte();
+            if (status == JvmWorker.ERROR) {
+                throw new InvocationTargetException(null, output.readUTF());
+            }
+            if (status != JvmWorker.OK) throw new IOException("Tundmatu vastus " + status);
+            double[] times = new double[output.readInt()];
+            for (int i = 0; i < times.length; i++) {
+                times[i] = output.readDouble();
+            }
+            double[] bytes = null;
+            if (output.readBoolean()) {
+                bytes = new double[times.length];
+                for (int i = 0; i < bytes.length; i++) {
+                    bytes[i] = output.readDouble();
+                }
+            }
+            return new MethodRunner.Samples(times, bytes);
+        }
+
+        private void destroy() {
+            process.destroyForcibly();
+        }
+    }
+}
@@ -0,0 +1,221 @@
+import java.util.Arrays;
+
+/**
+ * Klass LeastSquares leiab vähimruutude meetodil lineaarse regressiooni kordajad normaalvõrrandite abil. Arvutus
+ * toimub primitiivsete massiividega ega vaja iteratsioone.
+ */
+public final class LeastSquares {
+    private LeastSquares() {
+    }
+
+    /**
+     * Leiab seose y = c0 + c1 * columns[0][i] + c2 * columns[1][i] + ... kordajad, kasutades punkte alates indeksist
+     * from. Arvutuse stabiilsuse huvides skaleeritakse iga tunnus enne arvutust lõiku [-1, 1]
+     *
+     * @param y       sõltuva muutuja väärtused
+     * @param from    esimese kasutatava punkti indeks
+     * @param columns tunnuste väärtused
+     * @return leitud kordajad koos hälvetega või null, kui andmetes on lõpmatuid väärtusi või võrrandisüsteemil pole
+     * üheset lahendit
+     */
+    public static Fit fit(double[] y, int from, double[]... columns) {
+        int size = columns.length + 1;
+        int count = y.length - from;
+        if (count < size) return null;
+        double[] scale = new double[size];
+        scale[0] = 1;
+        for (int i = from; i < y.length; i++) {
+            if (!Double.isFinite(y[i])) return null;
+        }
+        for (int j = 1; j < size; j++) {
+            for (int i = from; i < y.length; i++) {
+                scale[j] = Math.max(scale[j], Math.abs(columns[j - 1][i]));
+            }
+            if (scale[j] == 0 || !Double.isFinite(scale[j])) return null;
+        }
+        double[][] matrix = new double[size][size + 1];
+        double[] row = new double[size];
+        row[0] = 1;
+        for (int i = from; i < y.length; i++) {
+            for (int j = 1; j < size; j++) {
+                row[j] = columns[j - 1][i] / scale[j];
+            }
+            for (int j = 0; j < size; j++) {
+                for (int k = j; k < size; k++) {
+                    matrix[j][k] += row[j] * row[k];
+                }
+                matrix[j][size] += row[j] * y[i];
+            }
+        }
+        for (int j = 0; j < size; j++) {
+            for (int k = 0; k < j; k++) {
+                matrix[j][k] = matrix[k][j];
+            }
+        }
+        double[] coefficients = solve(matrix);
+        if (coefficients == null) return null;
+        for (int j = 0; j < size; j++) {
+            coefficients[j] /= scale[j];
+        }
+        return evaluate(coefficients, y, from, columns);
+    }
+
+    /**
+     * Leiab regressiooni kordajad, kui osa vaatlusi on paremalt tsenseeritud ehk teada on vaid, et tegelik väärtus on
+     * vähemalt y[i]. Tsenseeritud vaatlus annab hälbe vaid siis, kui mudel ennustab piirist väiksema väärtuse. Selliste
+     * vaatluste hulk leitakse korduvalt: piirist allapoole jäävad tsenseeritud vaatlused kasutatakse regressioonis
+     * piiri väärtusega, ülejäänud jäetakse välja, kuni hulk enam ei muutu
+     *
+     * @param y        sõltuva muutuja väärtused või tsenseeritud vaatluste korral alumised piirid
+     * @param censored millised vaatlused on tsenseeritud, null kui tsenseeritud vaatlusi pole
+     * @param from     esimese kasutatava punkti indeks
+     * @param columns  tunnuste väärtused
+     * @return leitud kordajad koos kõigi punktide hälvetega või null, kui võrrandisüsteemil pole üheset lahendit
+     */
+    public static Fit fit(double[] y, boolean[] censored, int from, double[]... columns) {
+        Fit fit = fit(y, from, columns);
+        if (fit == null || censored == null) return fit;
+        boolean[] active = new boolean[y.length];
+        Arrays.fill(active, true);
+        double[] subsetY = new double[y.length - from];
+        double[][] subsetColumns = new double[columns.length][y.length - from];
+        for (int iteration = 0; iteration < 50; iteration++) {
+            boolean changed = false;
+            for (int i = from; i < y.length; i++) {
+                if (!censored[i]) continue;
+                boolean below = predict(fit.coefficients, columns, i) < y[i];
+                if (below != active[i]) {
+                    active[i] = below;
+                    changed = true;
+                }
+            }
+            if (!changed) break;
+            int count = 0;
+            for (int i = from; i < y.length; i++) {
+                if (censored[i] && !active[i]) continue;
+                subsetY[count] = y[i];
+                for (int j = 0; j < columns.length; j++) {
+                    subsetColumns[j][count] = columns[j][i];
+                }
+                count++;
+            }
+            double[][] used = new double[columns.length][];
+            for (int j = 0; j < columns.length; j++) {
+                used[j] = Arrays.copyOf(subsetColumns[j], count);
+            }
+            fit = fit(Arrays.copyOf(subsetY, count), 0, used);
+            if (fit == null) return null;
+        }
+        double[] adjusted = y.clone();
+        for (int i = from; i < y.length; i++) {
+            if (censored[i]) adjusted[i] = Math.max(y[i], predict(fit.coefficients, columns, i));
+        }
+        return evaluate(fit.coefficients, adjusted, from, columns);
+    }
+
+    /**
+     * Leiab mudeli ennustuse punktis i
+     *
+     * @param coefficients kordajad, esimene neist on vabaliige
+     * @param columns      tunnuste väärtused
+     * @param i            punkti indeks
+     * @return ennustatud väärtus
+     */
+    private static double predict(double[] coefficients, double[][] columns, int i) {
+        double predicted = coefficients[0];
+        for (int j = 0; j < columns.length; j++) {
+            predicted += coefficients[j + 1] * columns[j][i];
+        }
+        return predicted;
+    }
+
+    /**
+     * Arvutab leitud kordajate hälvete ruutude summa ning determinatsioonikordaja punktides alates indeksist from
+     *
+     * @param coefficients kordajad, esimene neist on vabaliige
+     * @param y            sõltuva muutuja väärtused
+     * @param from         esimese kasutatava punkti indeks
+     * @param columns      tunnuste väärtused
+     * @return regressiooni tulemus
+     */
+    private static Fit evaluate(double[] coefficients, double[] y, int from, double[][] columns) {
+        int count = y.length - from;
+        double mean = 0;
+        for (int i = from; i < y.length; i++) {
+            mean += y[i];
+        }
+        mean /= count;
+        double residuals = 0;
+        double total = 0;
+        for (int i = from; i < y.length; i++) {
+            double predicted = predict(coefficients, columns, i);
+            residuals += (y[i] - predicted) * (y[i] - predicted);
+            total += (y[i] - mean) * (y[i] - mean);
+        }
+        return new Fit(coefficients, residuals, total == 0 ? 1 : 1 - residuals / total, count);
+    }
+
+    /**
+     * Lahendab laiendatud maatriksiga antud võrrandisüsteemi Gaussi meetodil. Maatriksit muudetakse
+     *
+     * @param matrix laiendatud maatriks
+     * @return lahend või null, kui maatriks on singulaarne
+     */
+    private static double[] solve(double[][] matrix) {
+        int size = matrix.length;
+        for (int column = 0; column < size; column++) {
+            int pivot = column;
+            for (int i = column + 1; i < size; i++) {
+                if (Math.abs(matrix[i][column]) > Math.abs(matrix[pivot][column])) pivot = i;
+            }
+            if (!(Math.abs(matrix[pivot][column]) > 1e-300)) return null;
+            double[] swap = matrix[column];
+            matrix[column] = matrix[pivot];
+            matrix[pivot] = swap;
+            for (int i = column + 1; i < size; i++) {
+                double factor = matrix[i][column] / matrix[column][column];
+                for (int j = column; j <= size; j++) {
+                    matrix[i][j] -= factor * matrix[column][j];
+                }
+            }
+        }
+        double[] result = new double[size];
+        for (int i = size - 1; i >= 0; i--) {
+            double value = matrix[i][size];
+            for (int j = i + 1; j < size; j++) {
+                value -= matrix[i][j] * result[j];
+            }
+            result[i] = value / matrix[i][i];
+        }
+        return result;
+    }
+
+    /**
+     * Regressiooni tulemus
+     */
+    public static final class Fit {
+        /**
+         * Kordajad, esimene neist on vabaliige
+         */
+        public final double[] coefficients;
+        /**
+         * Hälvete ruutude summa
+         */
+        public final double residualSumOfSquares;
+        /**
+         * Determinatsioonikordaja
+         */
+        public final double rSquared;
+        /**
+         * Kasutatud punktide arv
+         */
+        public final int count;
+
+        private Fit(double[] coefficients, double residualSumOfSquares, double rSquared, int count) {
+            this.coefficients = coefficients;
+            this.residualSumOfSquares = residualSumOfSquares;
+            this.rSquared = rSquared;
+            this.count = count;
+        }
+    }
+}
@@ -1,3 +1,4 @@
+import java.io.IOException;
 import java.nio.file.Paths;
 
 /**
@@ -5,23 +6,46 @@ import java.nio.file.Paths;
  */
 public class Main {
     /**
-     * Alustab programmi tööd
+     * Alustab programmi tööd. Argumentidega "batch &lt;kaust või nimekiri&gt;" analüüsitakse korraga mitut faili,
+     * argumentidega "server [port]" käivitatakse hindamisserver (vt GradingServer), argumentideta analüüsitakse
+     * seadega source.file määratud faili
      */
-    public static void main(String[] args) {
+    public static void main(String[] args) throws IOException {
+        if (args.length > 0 && args[0].equals("server")) {
+            GradingServer.start(args.length > 1 ? Integer.parseInt(args[1])
+                    : Math.toIntExact(Config.valueAsLong("server.port", 8765L)));
+            return;
+        }
+        if (args.length > 0 && args[0].equals("batch")) {
+            if (args.length < 2)
+                throw new IllegalArgumentException("Pakktöötluseks tuleb anda kaust või failide nimekiri");
+            BatchRunner.run(Paths.get(args[1]));
+            System.exit(0);
+        }
         String fileName = Config.value("source.file");
         if (fileName == null || fileName.isEmpty())
             throw new IllegalArgumentException("Parameeter source.file peab leiduma failis config.properties");
-        FunctionExecutor executor;
-        if (fileName.endsWith(".java")) {
-            executor = new JavaExecutor(Paths.get(Config.valueAsString("source.java", "."), fileName));
-        } else {
-            String pythonPath = Config.valueAsString("source.python", ".");
-            executor = new PythonExecutor(Paths.get(pythonPath, fileName), pythonPath);
+        try {
+            FunctionExecutor executor;
+            if (fileName.endsWith(".java")) {
+                executor = new JavaExecutor(Paths.get(Config.valueAsString("source.java", "."), fileName));
+            } else {
+                String pythonPath = Config.valueAsString("source.python", ".");
+                executor = new PythonExecutor(Paths.get(pythonPath, fileName), pythonPath);
+            }
+            ResultHolder results = executor.analyse();
+            if (Config.valueAsLong("output.printtimes", 1L) != 0)
+                results.printResults();
+            System.out.println(results.getFunction());
+            if (Config.valueAsLong("output.memory", 0L) == 1 && !executor.getMemoryResults().isEmpty()) {
+                if (Config.valueAsLong("output.printtimes", 1L) != 0)
+                    executor.getMemoryResults().printResults();
+                System.out.println(executor.getMemoryResults().getFunction());
+            }
+        } catch (AnalysisException e) {
+            System.out.println(e.getComment());
+            System.exit(1);
         }
-        ResultHolder results = executor.start();
-        if (Config.valueAsLong("output.printtimes", 1L) != 0)
-            results.printResults();
-        System.out.println(results.getFunction());
         System.exit(0);
     }
 }
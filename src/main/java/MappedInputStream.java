@@ -0,0 +1,83 @@
+import java.io.BufferedInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+
+/**
+ * Klass MappedInputStream loeb faili mällu kaardistatud puhvrist, seega lugemisel ei kopeerita andmeid kernelist
+ * eraldi puhvrisse. Faili lehed laaditakse mällu juba voo avamisel, et suure sisendi lugemine kettalt ei mõjutaks
+ * mõõdetud tööaega.
+ */
+public class MappedInputStream extends InputStream {
+    private final FileChannel channel;
+    private final MappedByteBuffer buffer;
+    private int mark = 0;
+
+    private MappedInputStream(Path file) throws IOException {
+        channel = FileChannel.open(file, StandardOpenOption.READ);
+        buffer = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+        buffer.load();
+    }
+
+    /**
+     * Avab faili lugemiseks. Üle 2 GiB failid loetakse tavalise puhverdatud vooga, sest neid ei saa ühe puhvrina
+     * kaardistada
+     *
+     * @param file loetav fail
+     * @return sisendvoog
+     */
+    public static InputStream open(Path file) throws IOException {
+        if (Files.size(file) > Integer.MAX_VALUE) return new BufferedInputStream(Files.newInputStream(file), 1 << 16);
+        return new MappedInputStream(file);
+    }
+
+    @Override
+    public int read() {
+        return buffer.hasRemaining() ? buffer.get() & 0xff : -1;
+    }
+
+    @Override
+    public int read(byte[] b, int off, int len) {
+        if (len == 0) return 0;
+        if (!buffer.hasRemaining()) return -1;
+        int count = Math.min(len, buffer.remaining());
+        buffer.get(b, off, count);
+        return count;
+    }
+
+    @Override
+    public long skip(long n) {
+        int count = (int) Math.max(0, Math.min(n, buffer.remaining()));
+        buffer.position(buffer.position() + count);
+        return count;
+    }
+
+    @Override
+    public int available() {
+        return buffer.remaining();
+    }
+
+    @Override
+    public boolean markSupported() {
+        return true;
+    }
+
+    @Override
+    public synchronized void mark(int readLimit) {
+        mark = buffer.position();
+    }
+
+    @Override
+    public synchronized void reset() {
+        buffer.position(mark);
+    }
+
+    @Override
+    public void close() throws IOException {
+        channel.close();
+    }
+}
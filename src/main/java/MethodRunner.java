@@ -0,0 +1,331 @@
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.MethodType;
+import java.lang.management.CompilationMXBean;
+import java.lang.management.GarbageCollectorMXBean;
+import java.lang.management.ManagementFactory;
+import java.lang.management.MemoryPoolMXBean;
+import java.lang.management.MemoryType;
+import java.lang.management.ThreadMXBean;
+import java.lang.reflect.InvocationTargetException;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.LongFunction;
+
+/**
+ * Klass MethodRunner käivitab seotud meetodit genereeritud sisenditega ning mõõdab selle tööaega. Klassi kasutavad nii
+ * JavaExecutor samas protsessis mõõtmisel kui ka JvmWorker eraldi JVM-is mõõtmisel. Seadega measure.unit=ops
+ * mõõdetakse tööaja asemel instrumenteeritud koodis täidetud operatsioonide arvu. Kui instrumenteerimata meetodite
+ * (näiteks JDK) väljakutseid on üle poole loendatud operatsioonidest, hoiatatakse, et nende töö loendisse ei lähe.
+ * <p>
+ * Seadega measure.clock=cpu mõõdetakse seinakella asemel lõime protsessoriaega. Iga mõõtmise ajal jälgitakse
+ * prügikoristusi ning JIT-kompileerimise aega. Kui mõõtmise ajal toimus prügikoristus või kui JIT-kompileerimine
+ * moodustas tööajast üle measure.rerun.threshold osa, korratakse mõõtmist kuni measure.rerun korda ning kasutatakse
+ * kõige vähem mõjutatud tulemust. JIT-kompileerimise aeg on kogu protsessi oma, seega arvestatakse seda ainult siis,
+ * kui samas protsessis ei toimunud samal ajal teisi mõõtmisi (batch.threads, server.threads või measure.threads
+ * suurem kui 1).
+ * <p>
+ * Seadega output.memory=1 mõõdetakse iga käivituse ajal lõime poolt eraldatud mälu baitides, seadega memory.peak=1
+ * selle asemel kuhja suurima kasutuse kasvu käivituse ajal.
+ */
+public class MethodRunner {
+    private static final Logger logger = LoggerFactory.getLogger(MethodRunner.class);
+    // väikesel sisendil on ülekaalus sisendist sõltumatud väljakutsed, nende põhjal ei hoiatata
+    private static final long LIBRARY_WARN_MIN = 1000;
+    private static final ThreadMXBean threads = ManagementFactory.getThreadMXBean();
+    private static final List<GarbageCollectorMXBean> collectors = ManagementFactory.getGarbageCollectorMXBeans();
+    private static final CompilationMXBean compilation = ManagementFactory.getCompilationMXBean();
+    // samal ajal käivad ning seni alustatud mõõtmised, et teiste analüüside JIT-kompileerimist mitte arvestada
+    private static final AtomicInteger measuring = new AtomicInteger();
+    private static final AtomicLong started = new AtomicLong();
+    private final boolean operations = Config.valueAsString("measure.unit", "time").equals("ops");
+    private final boolean precise = Config.valueAsLong("measure.precise", 0L) == 1 && !operations;
+    private final int warmup = Math.toIntExact(Config.valueAsLong("measure.warmup", 3L));
+    private final int rerun = Math.toIntExact(Config.valueAsLong("measure.rerun", 2L));
+    private final double rerunThreshold = Config.valueAsDouble("measure.rerun.threshold", 0.05);
+    private final boolean cpuClock = Config.valueAsString("measure.clock", "wall").equals("cpu") && cpuTimeSupported();
+    private final boolean memory = Config.valueAsLong("output.memory", 0L) == 1;
+    private final boolean peak = Config.valueAsLong("memory.peak", 0L) == 1;
+    private final boolean allocationSupported = memory && !peak && allocationSupported();
+    private final Invoker invoker;
+    private final InputPool inputs;
+    private volatile boolean primed = false;
+    private volatile boolean libraryReported = false;
+
+    /**
+     * @param invoker meetodi väljakutsuja
+     * @param inputs  sisendite hoidla, null kui meetodit kutsutakse välja ilma sisendita
+     */
+    public MethodRunner(Invoker invoker, InputPool inputs) {
+        this.invoker = invoker;
+        this.inputs = inputs;
+    }
+
+    /**
+     * Koostab klassi DataGen meetodit getInput kasutava sisendi genereerija
+     *
+     * @param dataGen klass DataGen
+     * @return sisendi genereerija
+     */
+    public static LongFunction<Object> inputProvider(Class<?> dataGen) throws NoSuchMethodException, IllegalAccessException {
+        final MethodHandle inputHandle = MethodHandles.publicLookup()
+                .unreflect(dataGen.getMethod("getInput", long.class))
+                .asType(MethodType.methodType(Object.class, long.class));
+        return aLong -> {
+            try {
+                return (Object) inputHandle.invokeExact(aLong);
+            } catch (Throwable e) {
+                throw new RuntimeException("Sisendi genereerimine ebaõnnestus", e);
+            }
+        };
+    }
+
+    /**
+     * Kontrollib, kas lõime protsessoriaja mõõtmine on toetatud, ning lülitab selle vajadusel sisse
+     *
+     * @return kas protsessoriaega saab mõõta
+     */
+    private static boolean cpuTimeSupported() {
+        if (!threads.isCurrentThreadCpuTimeSupported()) return false;
+        if (!threads.isThreadCpuTimeEnabled()) threads.setThreadCpuTimeEnabled(true);
+        return true;
+    }
+
+    /**
+     * Kontrollib, kas lõime eraldatud mälu mõõtmine on toetatud, ning lülitab selle vajadusel sisse
+     *
+     * @return kas eraldatud mälu saab mõõta
+     */
+    private static boolean allocationSupported() {
+        if (!(threads instanceof com.sun.management.ThreadMXBean)) return false;
+        com.sun.management.ThreadMXBean bean = (com.sun.management.ThreadMXBean) threads;
+        if (!bean.isThreadAllocatedMemorySupported()) return false;
+        if (!bean.isThreadAllocatedMemoryEnabled()) bean.setThreadAllocatedMemoryEnabled(true);
+        return true;
+    }
+
+    /**
+     * @return kas mõõdetakse ka mälukasutust
+     */
+    public boolean measuresMemory() {
+        return memory && (peak || allocationSupported);
+    }
+
+    /**
+     * Leiab mõõtmiste arvule vastava käivituste arvu, soojenduskäivitused kaasa arvatud
+     *
+     * @param times mõõtmiste arv
+     * @return käivituste arv
+     */
+    public int invocations(int times) {
+        return times + (precise ? warmup : 0);
+    }
+
+    /**
+     * Käivitab meetodit küsitud arv kordi. Täpse mõõtmise korral (measure.precise=1) eelnevad mõõtmistele
+     * measure.warmup soojenduskäivitust, mille tööaegu ei tagastata
+     *
+     * @param times mõõtmiste arv
+     * @param n     sisendi suurus
+     * @return meetodi tööajad millisekundites või operatsioonide arvud ning mälukasutus
+     */
+    public Samples run(int times, long n) throws InvocationTargetException {
+        if (precise) {
+            for (int i = 0; i < warmup; i++) {
+                Blackhole.consume(invoke(inputs.get(n)));
+            }
+        }
+        double[] results = new double[times];
+        double[] bytes = measuresMemory() ? new double[times] : null;
+        if (bytes != null && !primed) {
+            // esimese käivituse ajal laaditakse klasse, mille mälukasutus ei sõltu sisendi suurusest
+            Blackhole.consume(invoke(inputs.get(n)));
+            primed = true;
+        }
+        for (int i = 0; i < times; i++) {
+            results[i] = runOnce(n, bytes, i);
+        }
+        return new Samples(results, bytes);
+    }
+
+    /**
+     * Käivitab meetodit etteantud suuruse sisendiga ning mõõdab selle tööaega. Sisend koostatakse enne mõõtmise
+     * algust, seega sisendi genereerimise aeg tööaja sisse ei lähe. Prügikoristuse või JIT-kompileerimise poolt
+     * mõjutatud mõõtmist korratakse uue sisendiga. Operatsioonide loendamisel peab meetod töötama lõimes ProbeThread
+     *
+     * @param n     sisendi suurus
+     * @param bytes massiiv, kuhu salvestada mälukasutus, null kui mälu ei mõõdeta
+     * @param index mõõtmise indeks massiivis bytes
+     * @return meetodi tööaeg millisekundites või operatsioonide arv
+     */
+    private double runOnce(long n, double[] bytes, int index) throws InvocationTargetException {
+        if (operations) {
+            Object input = inputs.get(n);
+            if (!(Thread.currentThread() instanceof ProbeThread))
+                throw new IllegalStateException("Operatsioonide loendamine vajab lõime ProbeThread");
+            ProbeThread thread = (ProbeThread) Thread.currentThread();
+            long before = thread.operations();
+            long libraryBefore = thread.libraryCalls();
+            long memoryBefore = memoryBefore(bytes);
+            Blackhole.consume(invoke(input));
+            if (bytes != null) bytes[index] = memoryAfter(memoryBefore);
+            long counted = thread.operations() - before;
+            long libraryCalls = thread.libraryCalls() - libraryBefore;
+            if (!libraryReported && counted >= LIBRARY_WARN_MIN && 2 * libraryCalls > counted) {
+                libraryReported = true;
+                logger.warn("Sisendi suurusega {} oli {} operatsioonist {} teekide meetodite väljakutsed, mille töö " +
+                        "loendisse ei lähe, seega võib keerukus olla alahinnatud", n, counted, libraryCalls);
+            }
+            return counted;
+        }
+        double best = Double.NaN;
+        double bestShare = Double.POSITIVE_INFINITY;
+        for (int attempt = 0; attempt <= rerun; attempt++) {
+            Object input = inputs.get(n);
+            boolean alone = measuring.incrementAndGet() == 1;
+            long first = started.incrementAndGet();
+            long[] before = disturbance();
+            double time;
+            double used;
+            long[] after;
+            try {
+                long memoryBefore = memoryBefore(bytes);
+                time = time(input);
+                used = bytes == null ? 0 : memoryAfter(memoryBefore);
+                after = disturbance();
+                alone &= started.get() == first;
+            } finally {
+                measuring.decrementAndGet();
+            }
+            long disturbance = after[0] - before[0] + (alone ? after[2] - before[2] : 0);
+            double share = disturbance == 0 ? 0 : disturbance / Math.max(time, 1);
+            boolean clean = after[1] == before[1] && share <= rerunThreshold;
+            if (clean || share < bestShare) {
+                best = time;
+                bestShare = share;
+                if (bytes != null) bytes[index] = used;
+            }
+            if (clean) break;
+        }
+        return best;
+    }
+
+    /**
+     * Loeb mälukasutuse enne käivitust. Kuhja suurima kasutuse mõõtmisel nullitakse mälupiirkondade tipud
+     *
+     * @param bytes null, kui mälu ei mõõdeta
+     * @return lõime eraldatud baidid või kuhja kasutus
+     */
+    private long memoryBefore(double[] bytes) {
+        if (bytes == null) return 0;
+        if (!peak) return ((com.sun.management.ThreadMXBean) threads).getThreadAllocatedBytes(Thread.currentThread().getId());
+        long used = 0;
+        for (MemoryPoolMXBean pool : ManagementFactory.getMemoryPoolMXBeans()) {
+            if (pool.getType() != MemoryType.HEAP) continue;
+            pool.resetPeakUsage();
+            used += pool.getUsage().getUsed();
+        }
+        return used;
+    }
+
+    /**
+     * Leiab käivituse mälukasutuse
+     *
+     * @param before meetodi memoryBefore tagastusväärtus
+     * @return mälukasutus baitides
+     */
+    private double memoryAfter(long before) {
+        long after;
+        if (!peak) {
+            after = ((com.sun.management.ThreadMXBean) threads).getThreadAllocatedBytes(Thread.currentThread().getId());
+        } else {
+            after = 0;
+            for (MemoryPoolMXBean pool : ManagementFactory.getMemoryPoolMXBeans()) {
+                if (pool.getType() == MemoryType.HEAP) after += pool.getPeakUsage().getUsed();
+            }
+        }
+        return Math.max(0, after - before);
+    }
+
+    /**
+     * Mõõdab ühe käivituse tööaja. Protsessoriaja ning täpse mõõtmise korral kasutatakse nanosekundilisi väärtusi
+     * ning meetodi tagastusväärtus antakse klassile Blackhole, et JIT ei saaks arvutust eemaldada
+     *
+     * @param input meetodi argument
+     * @return tööaeg millisekundites
+     */
+    private double time(Object input) throws InvocationTargetException {
+        if (cpuClock) {
+            long time = threads.getCurrentThreadCpuTime();
+            Object output = invoke(input);
+            long nanos = threads.getCurrentThreadCpuTime() - time;
+            Blackhole.consume(output);
+            return nanos / 1e6;
+        }
+        if (precise) {
+            long time = System.nanoTime();
+            Object output = invoke(input);
+            long nanos = System.nanoTime() - time;
+            Blackhole.consume(output);
+            return nanos / 1e6;
+        }
+        long time = System.currentTimeMillis();
+        invoke(input);
+        return System.currentTimeMillis() - time;
+    }
+
+    /**
+     * Tagastab seni prügikoristusele kulunud aja, prügikoristuste arvu ning JIT-kompileerimisele kulunud aja
+     *
+     * @return prügikoristuse aeg millisekundites, prügikoristuste arv ning JIT-kompileerimise aeg millisekundites
+     */
+    private long[] disturbance() {
+        long[] total = new long[3];
+        if (rerun == 0) return total;
+        for (GarbageCollectorMXBean collector : collectors) {
+            total[0] += Math.max(0, collector.getCollectionTime());
+            total[1] += Math.max(0, collector.getCollectionCount());
+        }
+        if (compilation != null && compilation.isCompilationTimeMonitoringSupported()) {
+            total[2] = compilation.getTotalCompilationTime();
+        }
+        return total;
+    }
+
+    /**
+     * Ühe sisendi suuruse mõõtmiste tulemused
+     */
+    public static final class Samples {
+        /**
+         * Tööajad millisekundites või operatsioonide arvud
+         */
+        public final double[] times;
+        /**
+         * Mälukasutus baitides, null kui mälu ei mõõdetud
+         */
+        public final double[] bytes;
+
+        public Samples(double[] times, double[] bytes) {
+            this.times = times;
+            this.bytes = bytes;
+        }
+    }
+
+    /**
+     * Kutsub välja meetodiga seotud väljakutsuja. Meetodi visatud erind edastatakse InvocationTargetException sees
+     *
+     * @param input meetodi argument
+     * @return meetodi tagastusväärtus
+     */
+    public Object invoke(Object input) throws InvocationTargetException {
+        try {
+            return invoker.invoke(input);
+        } catch (Throwable e) {
+            throw new InvocationTargetException(e);
+        }
+    }
+}
@@ -0,0 +1,29 @@
+/**
+ * Klass Operations sisaldab meetodit, mille väljakutse lisatakse operatsioonide loendamisel instrumenteeritud klasside
+ * meetodite algusesse ning hüpete ette. Loendur on lõime ProbeThread väli, seega eri lõimedes käivad mõõtmised
+ * üksteist ei sega.
+ * <p>
+ * Instrumenteeritakse ainult vaadeldava faili klassid, seega JDK ja teiste teekide meetodite töö ei lähe loendisse:
+ * näiteks Arrays.sort või HashMap.get väljakutse on üks operatsioon sõltumata sisendi suurusest. Selliste väljakutsete
+ * arv loendatakse eraldi (meetod library), et mõõtja saaks hoiatada, kui tulemus võib keerukust alahinnata.
+ */
+public final class Operations {
+    private Operations() {
+    }
+
+    /**
+     * Suurendab praeguse lõime operatsioonide loendurit, kui lõim on ProbeThread
+     */
+    public static void count() {
+        Thread thread = Thread.currentThread();
+        if (thread instanceof ProbeThread) ((ProbeThread) thread).operations++;
+    }
+
+    /**
+     * Suurendab praeguse lõime instrumenteerimata meetodite väljakutsete loendurit, kui lõim on ProbeThread
+     */
+    public static void library() {
+        Thread thread = Thread.currentThread();
+        if (thread instanceof ProbeThread) ((ProbeThread) thread).libraryCalls++;
+    }
+}
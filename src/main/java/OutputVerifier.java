@@ -0,0 +1,161 @@
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+
+/**
+ * Klass OutputVerifier võrdleb programmi väljundit oodatud väljundi failiga väljundi kirjutamise ajal, hoidmata kumbagi
+ * mälus. Oodatud väljundi fail kaardistatakse mällu. Reavahetusena käsitletakse nii \n, \r\n kui ka \r ning viimase
+ * rea reavahetus pole kohustuslik, seega tulemus on sama mis ridade nimekirjade võrdlemisel. Kui väljund erineb ning
+ * seadistati katkestamine, visatakse esimesel erineval baidil erind Mismatch.
+ */
+public class OutputVerifier extends OutputStream {
+    private static final int SNIPPET = 200;
+    private static final String END = "<väljundi lõpp>";
+    private final FileChannel channel;
+    private final MappedByteBuffer expected;
+    private final boolean abort;
+    private final ByteArrayOutputStream actualLine = new ByteArrayOutputStream();
+    private int expectedPosition = 0;
+    private int expectedLineStart = 0;
+    private boolean expectedSkipLF = false;
+    private int expectedLast = -1;
+    private boolean actualSkipLF = false;
+    private int actualLast = -1;
+    private boolean actualEnded = false;
+    private long line = 1;
+    private volatile boolean mismatch = false;
+
+    /**
+     * @param expectedFile oodatud väljundi fail
+     * @param abort        kas esimesel erinevusel visata erind Mismatch
+     */
+    public OutputVerifier(Path expectedFile, boolean abort) throws IOException {
+        channel = FileChannel.open(expectedFile, StandardOpenOption.READ);
+        expected = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+        this.abort = abort;
+    }
+
+    @Override
+    public synchronized void write(int b) {
+        if (mismatch) return;
+        if (actualSkipLF) {
+            actualSkipLF = false;
+            if (b == '\n') return;
+        }
+        if (b == '\r') {
+            actualSkipLF = true;
+            b = '\n';
+        }
+        compare(b & 0xff);
+    }
+
+    @Override
+    public synchronized void write(byte[] b, int off, int len) {
+        for (int i = off; i < off + len && !mismatch; i++) {
+            write(b[i]);
+        }
+    }
+
+    /**
+     * Lõpetab võrdlemise, kontrollides et oodatud väljundis pole rohkem ridu
+     *
+     * @return kas väljund vastas oodatule
+     */
+    public synchronized boolean finish() {
+        if (mismatch) return false;
+        if (actualLast != -1 && actualLast != '\n') compare('\n');
+        actualEnded = true;
+        if (!mismatch && nextExpected() != -1) mismatch = true;
+        return !mismatch;
+    }
+
+    /**
+     * @return kas seni kirjutatud väljund vastab oodatule
+     */
+    public boolean matches() {
+        return !mismatch;
+    }
+
+    /**
+     * @return esimese erinevuse kirjeldus, mis sisaldab rea numbrit ning oodatud ja saadud rea algust
+     */
+    public synchronized String describe() {
+        int end = expectedLineStart;
+        while (end < expected.limit() && end - expectedLineStart < SNIPPET && expected.get(end) != '\n' && expected.get(end) != '\r') end++;
+        byte[] expectedLine = new byte[end - expectedLineStart];
+        for (int i = 0; i < expectedLine.length; i++) {
+            expectedLine[i] = expected.get(expectedLineStart + i);
+        }
+        String expectedText = expectedLineStart >= expected.limit() ? END : new String(expectedLine, StandardCharsets.UTF_8);
+        String actualText = actualEnded && actualLine.size() == 0 ? END : new String(actualLine.toByteArray(), StandardCharsets.UTF_8);
+        return String.format("real %d oodati '%s', saadi '%s'", line, expectedText, actualText);
+    }
+
+    private void compare(int b) {
+        actualLast = b;
+        if (b != '\n' && actualLine.size() < SNIPPET) actualLine.write(b);
+        if (nextExpected() != b) {
+            mismatch = true;
+            if (abort) throw new Mismatch();
+            return;
+        }
+        if (b == '\n') {
+            line++;
+            actualLine.reset();
+            expectedLineStart = expectedPosition;
+        }
+    }
+
+    /**
+     * Tagastab oodatud väljundi järgmise baidi, asendades reavahetused märgiga \n
+     *
+     * @return järgmine bait või -1, kui oodatud väljund on lõppenud
+     */
+    private int nextExpected() {
+        while (true) {
+            if (expectedPosition >= expected.limit()) {
+                if (expectedLast != -1 && expectedLast != '\n') {
+                    expectedLast = '\n';
+                    return '\n';
+                }
+                return -1;
+            }
+            int b = expected.get(expectedPosition++) & 0xff;
+            if (expectedSkipLF) {
+                expectedSkipLF = false;
+                if (b == '\n') {
+                    expectedLineStart = expectedPosition;
+                    continue;
+                }
+            }
+            if (b == '\r') {
+                expectedSkipLF = true;
+                b = '\n';
+            }
+            expectedLast = b;
+            return b;
+        }
+    }
+
+    @Override
+    public void close() throws IOException {
+        channel.close();
+    }
+
+    /**
+     * Erind, mis katkestab väljundi erinemisel samas protsessis töötava programmi. Klass laiendab klassi Error, et
+     * programmi catch (Exception e) seda kinni ei püüaks
+     */
+    public static final class Mismatch extends Error {
+        private static final long serialVersionUID = 1L;
+
+        private Mismatch() {
+            super("Väljund erineb oodatust", null, false, false);
+        }
+    }
+}
@@ -0,0 +1,234 @@
+import java.util.*;
+import java.util.stream.IntStream;
+
+/**
+ * Klass PointPlanner valib mõõdetavad sisendi suurused adaptiivselt. Esmalt mõõdetakse geomeetriliselt paigutatud
+ * baaspunktid, seejärel valitakse järgmiseks suurus, mille korral kaks parimat keerukusmudelit erinevad mõõtmismüra
+ * suhtes kõige rohkem. Mudelid on samad, mida kasutab keerukuse leidmine (klass ComplexityModels). Töö lõpetatakse,
+ * kui parim mudel ei ole seadega point.stable määratud arvu mõõtmiste jooksul muutunud või kui mõõtmiste arv on
+ * jõudnud seadeni point.count. Ajapiirangu ületamisel kitsendatakse vahemikku allapoole ületanud suurust.
+ */
+public class PointPlanner {
+    private static final int BASELINE_POINTS = 10;
+    private static final int MAX_TIMEOUTS = 3;
+    private static final double NOISE_FLOOR = 1;
+    private static final double RELATIVE_NOISE = 0.1;
+
+    private final List<ComplexityModel> models = ComplexityModels.registered();
+    private final int maxPoints;
+    private final int stableLimit;
+    private long[] sizes = new long[16];
+    private double[] sums = new double[16];
+    private int[] counts = new int[16];
+    private int measuredCount = 0;
+    private int successCount = 0;
+    private long[] candidates;
+    private Columns candidateColumns;
+    private int baselineIndex = 0;
+    private int stableCount = 0;
+    private int timeouts = 0;
+    private int bestModel = -1;
+
+    /**
+     * @param limit     suurim kasutatav sisendi suurus
+     * @param maxPoints suurim lubatud mõõtmiste arv
+     */
+    public PointPlanner(long limit, int maxPoints) {
+        this.maxPoints = maxPoints;
+        this.stableLimit = Math.toIntExact(Config.valueAsLong("point.stable", 5L));
+        setCandidates(geometricGrid(Math.max(1, limit), maxPoints));
+    }
+
+    private void setCandidates(long[] grid) {
+        candidates = grid;
+        double[] x = new double[grid.length];
+        for (int i = 0; i < grid.length; i++) {
+            x[i] = grid[i];
+        }
+        candidateColumns = new Columns(x, new double[grid.length], null);
+    }
+
+    /**
+     * Koostab geomeetriliselt paigutatud sisendi suuruste järjendi vahemikus 1 kuni limit
+     *
+     * @param limit  suurim sisendi suurus
+     * @param points punktide arv
+     * @return kasvavalt sorteeritud erinevad sisendi suurused
+     */
+    private static long[] geometricGrid(long limit, int points) {
+        TreeSet<Long> grid = new TreeSet<>();
+        double ratio = Math.pow(limit, 1.0 / Math.max(1, points - 1));
+        for (int i = 0; i < points; i++) {
+            grid.add(Math.min(limit, Math.round(Math.pow(ratio, i))));
+        }
+        grid.add(limit);
+        return grid.stream().mapToLong(Long::longValue).toArray();
+    }
+
+    /**
+     * Salvestab, et mõõtmine ületas ajapiirangu. Edasised suurused valitakse vahemikust, mis jääb ületanud suurusest
+     * allapoole, ning baaspunktid paigutatakse selles vahemikus uuesti. Pärast korduvaid ületamisi mõõtmised
+     * lõpetatakse
+     *
+     * @param n ajapiirangu ületanud sisendi suurus
+     */
+    public void timeout(long n) {
+        timeouts++;
+        long limit = n - 1;
+        if (limit < 1 || timeouts >= MAX_TIMEOUTS) {
+            candidates = new long[0];
+            return;
+        }
+        setCandidates(geometricGrid(limit, maxPoints));
+        baselineIndex = 0;
+    }
+
+    /**
+     * Salvestab mõõtmise tulemuse
+     *
+     * @param n    sisendi suurus
+     * @param time tööaeg millisekundites, NaN kui mõõtmine ebaõnnestus
+     */
+    public void record(long n, double time) {
+        int index = Arrays.binarySearch(sizes, 0, measuredCount, n);
+        if (index < 0) {
+            index = -index - 1;
+            if (measuredCount == sizes.length) {
+                sizes = Arrays.copyOf(sizes, 2 * measuredCount);
+                sums = Arrays.copyOf(sums, 2 * measuredCount);
+                counts = Arrays.copyOf(counts, 2 * measuredCount);
+            }
+            System.arraycopy(sizes, index, sizes, index + 1, measuredCount - index);
+            System.arraycopy(sums, index, sums, index + 1, measuredCount - index);
+            System.arraycopy(counts, index, counts, index + 1, measuredCount - index);
+            sizes[index] = n;
+            sums[index] = 0;
+            counts[index] = 0;
+            measuredCount++;
+        }
+        if (!Double.isNaN(time)) {
+            if (counts[index] == 0) successCount++;
+            sums[index] += time;
+            counts[index]++;
+        }
+    }
+
+    private boolean measured(long n) {
+        return Arrays.binarySearch(sizes, 0, measuredCount, n) >= 0;
+    }
+
+    /**
+     * Valib järgmise mõõdetava sisendi suuruse
+     *
+     * @return sisendi suurus või -1, kui mõõtmised on lõppenud
+     */
+    public long next() {
+        if (measuredCount >= maxPoints || candidates.length == 0) return -1;
+        int baseline = Math.min(BASELINE_POINTS, candidates.length);
+        while (baselineIndex < baseline) {
+            long n = candidates[(int) ((long) baselineIndex * (candidates.length - 1) / Math.max(1, baseline - 1))];
+            baselineIndex++;
+            if (!measured(n)) return n;
+        }
+        double[][] fits = fitModels();
+        int[] ranking = rank(fits);
+        if (ranking[0] == bestModel) {
+            stableCount++;
+        } else {
+            bestModel = ranking[0];
+            stableCount = 0;
+        }
+        if (stableCount >= stableLimit) return -1;
+        return mostInformative(fits[ranking[0]], fits[ranking[1]], ranking[0], ranking[1]);
+    }
+
+    /**
+     * Sobitab iga registreeritud mudeli seosega aeg = a + b * f(n) (vt LeastSquares)
+     *
+     * @return iga mudeli kordajad a, b ning hälvete ruutude summa
+     */
+    private double[][] fitModels() {
+        double[] x = new double[successCount];
+        double[] y = new double[successCount];
+        for (int i = 0, j = 0; i < measuredCount; i++) {
+            if (counts[i] == 0) continue;
+            x[j] = sizes[i];
+            y[j++] = sums[i] / counts[i];
+        }
+        Columns data = new Columns(x, y, null);
+        double[][] fits = new double[models.size()][];
+        for (int m = 0; m < models.size(); m++) {
+            double[] column = models.get(m).column(data);
+            LeastSquares.Fit fit = column == null ? LeastSquares.fit(y, 0) : LeastSquares.fit(y, 0, column);
+            if (fit == null) {
+                fits[m] = new double[]{0, 0, Double.POSITIVE_INFINITY};
+            } else {
+                fits[m] = new double[]{fit.coefficients[0], fit.coefficients.length > 1 ? fit.coefficients[1] : 0,
+                        fit.residualSumOfSquares};
+            }
+        }
+        return fits;
+    }
+
+    /**
+     * Järjestab mudelid hälvete ruutude summa alusel
+     *
+     * @param fits mudelite kordajad
+     * @return mudelite indeksid paremast halvemani
+     */
+    private static int[] rank(double[][] fits) {
+        return IntStream.range(0, fits.length).boxed()
+                .sorted(Comparator.comparingDouble(m -> fits[m][2]))
+                .mapToInt(Integer::intValue).toArray();
+    }
+
+    /**
+     * Leiab mõõtmata sisendi suuruse, mille korral kahe mudeli ennustused erinevad hinnangulise mõõtmismüra suhtes
+     * kõige rohkem. Peaaegu sama eristusvõimega suuruste seast eelistatakse väiksemat, sest selle mõõtmine on odavam
+     *
+     * @return sisendi suurus või -1, kui sobivat suurust ei leidu
+     */
+    private long mostInformative(double[] first, double[] second, int firstModel, int secondModel) {
+        double[] power = new double[candidates.length];
+        boolean[] done = new boolean[candidates.length];
+        double[] firstColumn = models.get(firstModel).column(candidateColumns);
+        double[] secondColumn = models.get(secondModel).column(candidateColumns);
+        double best = 0;
+        for (int i = 0; i < candidates.length; i++) {
+            done[i] = measured(candidates[i]);
+            if (done[i]) continue;
+            double p1 = Math.max(0, predict(first, firstColumn, i));
+            double p2 = Math.max(0, predict(second, secondColumn, i));
+            if (!Double.isFinite(p1) || !Double.isFinite(p2)) continue;
+            power[i] = Math.abs(p1 - p2) / (NOISE_FLOOR + RELATIVE_NOISE * Math.max(p1, p2));
+            best = Math.max(best, power[i]);
+        }
+        for (int i = 0; i < candidates.length; i++) {
+            if (!done[i] && power[i] >= 0.9 * best && (best > 0 || power[i] == 0)) {
+                return candidates[i];
+            }
+        }
+        return -1;
+    }
+
+    /**
+     * Arvutab mudeli ennustuse kandidaatsuurusele
+     *
+     * @param fit    mudeli kordajad
+     * @param column mudeli teisendus kandidaatsuurustel, null konstantse mudeli korral
+     * @param i      kandidaatsuuruse indeks
+     * @return ennustatud tööaeg
+     */
+    private static double predict(double[] fit, double[] column, int i) {
+        return column == null ? fit[0] : fit[0] + fit[1] * column[i];
+    }
+
+    /**
+     * Tagastab hetkel parima mudeli nime
+     *
+     * @return keerukusklassi nimi
+     */
+    public String bestModel() {
+        return bestModel < 0 ? "" : models.get(bestModel).name();
+    }
+}
@@ -0,0 +1,89 @@
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+
+/**
+ * Klass ProbeThread on lõim, milles mõõdetakse instrumenteeritud meetodit. Lõime saab katkestada, määrates lipu, mida
+ * instrumenteeritud kood kontrollib meetodi alguses ning tagasisuunalistel hüpetel (vt Cancellation). Lisaks peab lõim
+ * arvet selles täidetud operatsioonide üle (vt Operations).
+ */
+public class ProbeThread extends Thread {
+    private volatile boolean cancelled = false;
+    long operations = 0;
+    long libraryCalls = 0;
+
+    public ProbeThread(Runnable target) {
+        super(target, "probe");
+    }
+
+    /**
+     * @return kas lõimes töötav mõõtmine on katkestatud
+     */
+    boolean isCancelled() {
+        return cancelled;
+    }
+
+    /**
+     * @return lõimes seni täidetud operatsioonide arv
+     */
+    public long operations() {
+        return operations;
+    }
+
+    /**
+     * @return lõimes seni tehtud instrumenteerimata meetodite väljakutsete arv
+     */
+    public long libraryCalls() {
+        return libraryCalls;
+    }
+
+    /**
+     * Katkestab lõimes töötava mõõtmise ootamata selle lõppu
+     */
+    public synchronized void cancel() {
+        if (!cancelled) {
+            cancelled = true;
+            Cancellation.pending.incrementAndGet();
+        }
+        interrupt();
+    }
+
+    /**
+     * Katkestab lõimes töötava mõõtmise ning ootab, kuni see lõpeb
+     *
+     * @param task   katkestatav töö
+     * @param millis kui kaua lõpetamist oodata
+     * @return kas töö lõppes ettenähtud aja jooksul, vastasel juhul jääb lõim kinni
+     */
+    public boolean cancel(Future<?> task, long millis) throws InterruptedException {
+        cancel();
+        try {
+            task.get(millis, TimeUnit.MILLISECONDS);
+        } catch (ExecutionException e) {
+            return true;
+        } catch (TimeoutException e) {
+            return false;
+        }
+        return true;
+    }
+
+    /**
+     * Eemaldab katkestuse lipu. Kutsutakse välja lõimes enne järgmise mõõtmise algust
+     */
+    public synchronized void reset() {
+        if (cancelled) {
+            cancelled = false;
+            Cancellation.pending.decrementAndGet();
+        }
+    }
+
+    @Override
+    public void run() {
+        try {
+            super.run();
+        } finally {
+            reset();
+        }
+    }
+}
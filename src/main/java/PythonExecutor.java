@@ -2,6 +2,7 @@ import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
 import java.io.*;
+import java.lang.reflect.InvocationTargetException;
 import java.nio.charset.Charset;
 import java.nio.file.Files;
 import java.nio.file.Path;
@@ -9,18 +10,109 @@ import java.nio.file.Paths;
 import java.nio.file.StandardOpenOption;
 import java.util.ArrayList;
 import java.util.List;
-import java.util.concurrent.TimeUnit;
-import java.util.concurrent.TimeoutException;
-import java.util.stream.Collectors;
+import java.util.concurrent.*;
 
 /**
  * Klass PythonExecutor võimaldab keeles Python koostatud funktsioonide ning failide käivitamist.
  */
 public class PythonExecutor extends FunctionExecutor {
     private static final Logger logger = LoggerFactory.getLogger(PythonExecutor.class);
-    private long TIME_LIMIT;
+    private final long TIME_LIMIT = Config.valueAsLong("function.goal.time", 2000L);
     private boolean printProgress = Config.valueAsLong("output.printprogress", 0L) == 1;
+    private final double searchTimeout = Config.valueAsDouble("search.timeout.factor", 1.5);
+    private final double pointTimeout = Config.valueAsDouble("point.timeout.factor", 2.0);
     private final String pythonPath;
+    private static final String RESPONSE_PREFIX = "@@time ";
+    /**
+     * Käivitaja algus. Vastuste jaoks jäetakse alles algse standardväljundi koopia, standardväljund suunatakse enne
+     * vaadeldava mooduli importimist standardveavoogu. Nii ei saa funktsiooni enda väljund (ka ilma reavahetuseta)
+     * vastustega seguneda
+     */
+    private static final String RUNNER_HEADER = "import os%n" +
+            "import sys%n" +
+            "reply = os.fdopen(os.dup(1), 'w')%n" +
+            "os.dup2(2, 1)%n" +
+            "import %s as source%n" +
+            "import time%n" +
+            "import traceback%n" +
+            "try:%n" +
+            "    import datagen%n" +
+            "    get_input = datagen.getInput%n" +
+            "except ImportError:%n" +
+            "    get_input = lambda n: n%n";
+    private static final String RUNNER_LOOP = "for line in sys.stdin:%n" +
+            "    try:%n" +
+            "        input_value = get_input(int(line))%n" +
+            "        start_measure()%n" +
+            "        source.%s(input_value)%n" +
+            "        result = stop_measure()%n" +
+            "    except Exception:%n" +
+            "        stop_measure()%n" +
+            "        traceback.print_exc()%n" +
+            "        sys.stderr.flush()%n" +
+            "        reply.write('" + RESPONSE_PREFIX + "error\\n')%n" +
+            "        reply.flush()%n" +
+            "        continue%n" +
+            "    reply.write('" + RESPONSE_PREFIX + "' + str(result) + '\\n')%n" +
+            "    reply.flush()%n";
+    /**
+     * Käivitaja, mis mõõdab funktsiooni tööaega millisekundites. Kell on time.perf_counter või seadega
+     * measure.clock=cpu time.process_time
+     */
+    private static final String TIMING_RUNNER = RUNNER_HEADER +
+            "clock = time.%s%n" +
+            "start_time = 0%n" +
+            "def start_measure():%n" +
+            "    global start_time%n" +
+            "    start_time = clock()%n" +
+            "def stop_measure():%n" +
+            "    return 1000 * (clock() - start_time)%n" +
+            RUNNER_LOOP;
+    /**
+     * Käivitaja, mis loendab vaadeldava mooduli täidetud ridu. Python 3.12 ja uuemate korral kasutatakse moodulit
+     * sys.monitoring, vanemate korral funktsiooni sys.settrace
+     */
+    private static final String COUNTING_RUNNER = RUNNER_HEADER +
+            "target_file = source.__file__%n" +
+            "lines = 0%n" +
+            "if hasattr(sys, 'monitoring'):%n" +
+            "    monitoring = sys.monitoring%n" +
+            "    tool = monitoring.PROFILER_ID%n" +
+            "    monitoring.use_tool_id(tool, 'timecomplexity')%n" +
+            "    def on_line(code, line_number):%n" +
+            "        global lines%n" +
+            "        if code.co_filename != target_file:%n" +
+            "            return monitoring.DISABLE%n" +
+            "        lines += 1%n" +
+            "    monitoring.register_callback(tool, monitoring.events.LINE, on_line)%n" +
+            "    def start_measure():%n" +
+            "        global lines%n" +
+            "        lines = 0%n" +
+            "        monitoring.set_events(tool, monitoring.events.LINE)%n" +
+            "    def stop_measure():%n" +
+            "        monitoring.set_events(tool, 0)%n" +
+            "        return lines%n" +
+            "else:%n" +
+            "    def local_trace(frame, event, arg):%n" +
+            "        global lines%n" +
+            "        if event == 'line':%n" +
+            "            lines += 1%n" +
+            "        return local_trace%n" +
+            "    def global_trace(frame, event, arg):%n" +
+            "        return local_trace if frame.f_code.co_filename == target_file else None%n" +
+            "    def start_measure():%n" +
+            "        global lines%n" +
+            "        lines = 0%n" +
+            "        sys.settrace(global_trace)%n" +
+            "    def stop_measure():%n" +
+            "        sys.settrace(None)%n" +
+            "        return lines%n" +
+            RUNNER_LOOP;
+    private final boolean operations = Config.valueAsString("measure.unit", "time").equals("ops");
+    private Process worker;
+    private BufferedWriter workerInput;
+    private BufferedReader workerOutput;
+    private static final ExecutorService workerReader = Executors.newCachedThreadPool(Config.sharedThreads("python-worker-reader"));
 
 
     /**
@@ -32,74 +124,106 @@ public class PythonExecutor extends FunctionExecutor {
         this.pythonPath = pythonPath;
     }
 
+    @Override
+    protected Path dataGenSource() {
+        return Paths.get(pythonPath, "datagen.py");
+    }
+
+    @Override
+    protected String runtimeVersion() {
+        return ResultCache.pythonVersion();
+    }
+
     /**
-     * Kopeerib sisendvoost loetud info väljundvoogu
+     * Tagastab vaadeldava mooduli nime, mille abil käivitaja seda impordib
      *
-     * @param input  sisendvoog
-     * @param output väljundvoog
-     */
-    //https://stackoverflow.com/a/1574857/3667389
-    private static void copyStream(InputStream input, OutputStream output) throws IOException {
-        byte[] buffer = new byte[4096];
-        int bytesRead;
-        while ((bytesRead = input.read(buffer)) != -1) {
-            output.write(buffer, 0, bytesRead);
-        }
+     * @return mooduli nimi
+     */
+    private String moduleName() {
+        return source.getFileName().toString().replaceFirst("\\.py$", "");
+    }
+
+    /**
+     * Tagastab mooduli jaoks genereeritava käivitaja asukoha. Igal moodulil on oma käivitaja, et mitu analüüsi saaksid
+     * samas kaustas korraga töötada
+     *
+     * @return käivitaja faili asukoht
+     */
+    private Path runnerPath() {
+        return Paths.get(pythonPath, "python_runner_" + moduleName() + ".py");
     }
 
     /**
-     * Genereerib faili python_runner.py, mis kutsub välja vaadeldavat funktsiooni
+     * Genereerib mooduli jaoks käivitaja faili, mis kutsub välja vaadeldavat funktsiooni. Seadega measure.unit=ops
+     * loendab käivitaja tööaja asemel mooduli täidetud ridu ning otsitakse sisendi suurust, mille korral täidetakse
+     * function.goal.lines rida
      *
      * @return kogutud andmed
      */
     @Override
     public ResultHolder start() {
-        TIME_LIMIT = Config.valueAsLong("function.goal.time", 2000L);
         switch (Config.valueAsString("mode", "auto")) {
             case "auto":
                 Long maxN = Config.valueAsLong("function.n.max", (long) Integer.MAX_VALUE);
                 Long minN = Config.valueAsLong("function.n.min", 0L);
                 Long pointCount = Config.valueAsLong("point.count", 100L);
-                String sourceFile = Config.value("source.file").replaceFirst("\\.py$", "");
-                try (BufferedWriter writer = Files.newBufferedWriter(Paths.get(pythonPath, "python_runner.py"), Charset.forName("utf8"), StandardOpenOption.TRUNCATE_EXISTING, StandardOpenOption.WRITE, StandardOpenOption.CREATE)) {
-                    String runnerBase = "import %s as source%n" +
-                            "import time%n" +
-                            "import sys%n" +
-                            "try:%n" +
-                            "    import datagen%n" +
-                            "    input_value = datagen.getInput(int(sys.argv[1]))%n" +
-                            "except ImportError:%n" +
-                            "    input_value = int(sys.argv[1])%n" +
-                            "start_time = (time.time())%n" +
-                            "source.%s(input_value)%n" +
-                            "end_time = (time.time())%n" +
-                            "print(1000*(end_time-start_time))%n";
-                    writer.write(String.format(runnerBase, sourceFile, Config.value("function.name")));
+                if (Config.valueAsLong("output.memory", 0L) == 1)
+                    logger.warn("Pythoni funktsioonide mälukasutust ei mõõdeta");
+                try {
+                    writeRunner();
                 } catch (IOException e) {
                     logger.error("Faili probleem", e);
                     return results;
                 }
-                int repeats = 2;
-                long limit;
-                if (maxN - minN < pointCount || Config.valueAsLong("point.only", 0L) != 0) {
-                    limit = maxN;
-                } else {
-                    limit = findMaxArgument(repeats, minN, maxN);
+                journal = openJournal();
+                try {
+                    // loendatud ridade arv ei sõltu käivitusest, seega piisab ühest mõõtmisest
+                    int repeats = operations ? 1 : 2;
+                    long limit;
+                    if (journal != null && journal.limit() != null) {
+                        limit = journal.limit();
+                    } else if (maxN - minN < pointCount || Config.valueAsLong("point.only", 0L) != 0) {
+                        limit = maxN;
+                    } else {
+                        limit = findMaxArgument(repeats, minN, maxN);
+                    }
+                    if (journal != null && journal.limit() == null) journal.limit(limit);
+                    logger.info("Suurim kasutatav sisendi suurus: {}", limit);
+                    fillPoints(limit, Math.toIntExact(pointCount));
+                } finally {
+                    stopWorker();
+                    closeJournal();
                 }
-                logger.info("Suurim kasutatav sisendi suurus: {}", limit);
-                fillPoints(limit, Math.toIntExact(pointCount));
                 break;
             case "manual":
-                int testCase = 1;
-                while (invokeManual(Integer.toString(testCase))) testCase++;
+                try {
+                    runTestCases(this::invokeManual);
+                } catch (IOException | InvocationTargetException e) {
+                    logger.error("Probleem käivitamisega", e);
+                }
                 break;
         }
         return results;
     }
 
+    /**
+     * Kirjutab vaadeldava funktsiooni käivitaja faili
+     */
+    void writeRunner() throws IOException {
+        try (BufferedWriter writer = Files.newBufferedWriter(runnerPath(), Charset.forName("utf8"), StandardOpenOption.TRUNCATE_EXISTING, StandardOpenOption.WRITE, StandardOpenOption.CREATE)) {
+            String functionName = Config.value("function.name");
+            if (operations) {
+                writer.write(String.format(COUNTING_RUNNER, moduleName(), functionName));
+            } else {
+                String clock = Config.valueAsString("measure.clock", "wall").equals("cpu") ? "process_time" : "perf_counter";
+                writer.write(String.format(TIMING_RUNNER, moduleName(), clock, functionName));
+            }
+        }
+    }
+
     /**
      * Kasutab topelkahendotsingut et leida, millise sisendi suurusega võtab meetodi käivitus seadetes määratud hulgal
-     * aega
+     * aega. Otsingu olek salvestatakse pärast igat sammu töö päevikusse, jätkatava töö korral jätkatakse sealt
      *
      * @param repeats mitu korda sama sisendi suuruse mõõtmisi teha
      * @param minN    otsitava sisendi suuruse alumine piir
@@ -107,70 +231,189 @@ public class PythonExecutor extends FunctionExecutor {
      * @return sisendi suurus, mille korral käivitusaeg oli seadetes määratud piirides
      */
     private long findMaxArgument(int repeats, Long minN, Long maxN) {
-        GuessProvider guessProvider = new GuessProvider(minN, maxN);
-        while (true) {
+        GuessProvider guessProvider = journal != null && journal.search() != null ? journal.search()
+                : operations ? new GuessProvider(minN, maxN, Config.valueAsLong("function.goal.lines", 100000L))
+                : new GuessProvider(minN, maxN);
+        while (!guessProvider.isFinished()) {
             long current = guessProvider.getCurrent();
-            List<Long> currentTimes = new ArrayList<>();
+            List<Double> currentTimes = new ArrayList<>();
             for (int i = 0; i < repeats; i++) {
-                long time = runPythonFunction(current);
+                double time = runPythonFunction(current, searchTimeout);
                 currentTimes.add(time);
+                if (Double.isInfinite(time)) break;
             }
-            double average = currentTimes.stream().reduce(0L, (aLong, aLong2) -> aLong + aLong2) / currentTimes.size();
-            if (guessProvider.findNext(average)) {
-                break;
-            }
+            double average = currentTimes.stream().mapToDouble(Double::doubleValue).average().orElse(Double.MAX_VALUE);
+            guessProvider.findNext(average);
+            if (journal != null) journal.search(guessProvider);
         }
         return guessProvider.getCurrent();
     }
 
     /**
-     * Teeb täiendavaid mõõtmisi, et saada piisavas koguses ning ühtlasema jaotusega andmeid
+     * Teeb täiendavaid mõõtmisi, et saada piisavas koguses ning ühtlasema jaotusega andmeid. Seadega
+     * point.strategy=adaptive valib mõõdetavad suurused klass PointPlanner, mis ajapiirangu ületamisel kitsendab
+     * vahemikku. Vastasel juhul pärast ajapiirangu ületamist suuremaid sisendeid enam ei mõõdeta
      *
      * @param limit  suurim kasutatav sisendi väärtus
      * @param points mitu mõõtmist sooritada
      */
     private void fillPoints(long limit, int points) {
+        if (Config.valueAsString("point.strategy", "uniform").equals("adaptive")) {
+            PointPlanner planner = new PointPlanner(limit, points);
+            for (long n = planner.next(); n >= 0; n = planner.next()) {
+                double time = fillPoint(n);
+                if (Double.isInfinite(time)) planner.timeout(n);
+                else planner.record(n, time);
+            }
+            logger.info("Adaptiivse paigutuse järgi sobib kõige paremini O({})", planner.bestModel());
+            return;
+        }
         long increment = limit / points;
         if (limit <= points) increment = 1;
         for (long i = 0; i < limit; i += increment) {
-            runPythonFunction(i);
+            if (Double.isInfinite(fillPoint(i))) break;
         }
     }
 
     /**
-     * Käivitab genereeritud Pythoni faili uue protsessina
-     * See fail käivitab vaadeldavat funktsiooni ning mõõdab selle tööaega
+     * Mõõdab täiendava punkti. Jätkatava töö korral kasutatakse päevikusse salvestatud tulemust
+     *
+     * @param n sisendi suurus
+     * @return funktsiooni tööaeg või lõpmatus, kui ajapiirang ületati
+     */
+    private double fillPoint(long n) {
+        Double known = journal != null ? journal.point(n) : null;
+        if (known != null) return known;
+        double time = runPythonFunction(n, pointTimeout);
+        if (journal != null) journal.point(n, time);
+        return time;
+    }
+
+    /**
+     * Sulgeb töö päeviku
+     */
+    private void closeJournal() {
+        if (journal == null) return;
+        try {
+            journal.close();
+        } catch (IOException e) {
+            logger.warn("Töö päeviku sulgemine ebaõnnestus: {}", String.valueOf(e));
+        }
+    }
+
+    /**
+     * Saadab sisendi suuruse püsivale Pythoni protsessile ning loeb vastuseks funktsiooni tööaja. Protsess käivitatakse
+     * vajadusel uuesti, kui see on vahepeal lõpetanud töö. Ajapiirangu ületamisel protsess lõpetatakse ning sisendi
+     * suurus salvestatakse tsenseeritud vaatlusena. Kui protsess lõpetab töö ka uuesti käivitamise järel, visatakse
+     * AnalysisException
      *
      * @param current sisendi suurus
-     * @return funktsiooni tööaeg
+     * @param factor  mitu korda võib käivitus ületada seadega function.goal.time määratud aega
+     * @return funktsiooni tööaeg või lõpmatus, kui ajapiirang ületati
      */
-    private long runPythonFunction(Long current) {
-        ProcessBuilder pb = new ProcessBuilder("python3", Paths.get(pythonPath, "python_runner.py").toAbsolutePath().toString(), current.toString());
-        pb.redirectErrorStream(true);
+    double runPythonFunction(Long current, double factor) {
+        for (int attempt = 0; attempt < 2; attempt++) {
+            try {
+                startWorker();
+                long time = System.currentTimeMillis();
+                workerInput.write(current.toString());
+                workerInput.newLine();
+                workerInput.flush();
+                Future<String> response = workerReader.submit(this::readResponse);
+                String line = response.get((long) Math.ceil(factor * TIME_LIMIT), TimeUnit.MILLISECONDS);
+                if (line == null) throw new EOFException("Pythoni protsess lõpetas töö");
+                if (line.equals("error")) {
+                    logger.error("Funktsiooni käivitamine sisendi suurusega {} ebaõnnestus", current);
+                    stopWorker();
+                    throw new AnalysisException("Funktsiooni käivitamine ebaõnnestus");
+                }
+                double pythonTime = Double.parseDouble(line);
+                long timeTaken = System.currentTimeMillis() - time;
+                if (printProgress) {
+                    logger.info("Sisendi suurusega {} kulus Java vaatepunktist aega: {}", current, timeTaken);
+                    logger.info("Sisendi suurusega {} kulus Pythoni vaatepunktist aega: {}", current, pythonTime);
+                }
+                results.addTime(current, pythonTime);
+                return pythonTime;
+            } catch (TimeoutException e) {
+                stopWorker();
+                logger.warn("Sisendi suurusega {} läheb liiga kaua aega", current);
+                if (operations) results.addTime(current, null);
+                else results.addTimeout(current, factor * TIME_LIMIT);
+                return Double.POSITIVE_INFINITY;
+            } catch (InterruptedException e) {
+                stopWorker();
+                Thread.currentThread().interrupt();
+                throw new AnalysisException("Analüüs katkestati");
+            } catch (IOException | ExecutionException e) {
+                logger.warn("Pythoni protsessiga tekkis probleem, see käivitatakse uuesti", e);
+                stopWorker();
+            }
+        }
+        throw new AnalysisException("Pythoni protsess lõpetas korduvalt töö sisendi suurusega " + current);
+    }
+
+    /**
+     * Käivitab genereeritud käivitaja püsiva protsessina, kui see juba ei tööta. Protsess impordib vaadeldava mooduli
+     * ühe korra ning loeb seejärel sisendi suurusi standardsisendist. Standardväljundis on ainult vastused, funktsiooni
+     * enda väljund ning veateated loetakse standardveavoost eraldi lõimes
+     */
+    private void startWorker() throws IOException {
+        if (worker != null && worker.isAlive()) return;
+        ProcessBuilder pb = new ProcessBuilder("python3", runnerPath().toAbsolutePath().toString());
+        worker = pb.start();
+        workerInput = new BufferedWriter(new OutputStreamWriter(worker.getOutputStream(), Charset.forName("UTF-8")));
+        workerOutput = new BufferedReader(new InputStreamReader(worker.getInputStream(), Charset.forName("UTF-8")));
+        BufferedReader errors = new BufferedReader(new InputStreamReader(worker.getErrorStream(), Charset.forName("UTF-8")));
+        workerReader.submit(() -> {
+            try (BufferedReader reader = errors) {
+                String line;
+                while ((line = reader.readLine()) != null) {
+                    if (printProgress) logger.info("Pythoni väljund: {}", line);
+                }
+            }
+            return null;
+        });
+    }
+
+    /**
+     * Lõpetab püsiva Pythoni protsessi töö
+     */
+    void stopWorker() {
+        if (worker == null) return;
+        worker.destroyForcibly();
         try {
-            long time = System.currentTimeMillis();
-            Process p = pb.start();
-            InputStream stdout = p.getInputStream();
-            waitForProcess(p, current);
-            InputStreamReader stdoutStreamReader = new InputStreamReader(stdout, Charset.forName("UTF-8"));
-            BufferedReader stdoutReader = new BufferedReader(stdoutStreamReader);
-            List<String> functionOutput = stdoutReader.lines().collect(Collectors.toList());
-            stdout.close();
-            stdoutStreamReader.close();
-            stdoutReader.close();
-            long pythonTime = Math.round(Double.parseDouble(functionOutput.get(functionOutput.size() - 1)));
-            long endTime = System.currentTimeMillis();
-            long timeTaken = endTime - time;
-            if (printProgress) {
-                logger.info("Sisendi suurusega {} kulus Java vaatepunktist aega: {}", current, timeTaken);
-                logger.info("Sisendi suurusega {} kulus Pythoni vaatepunktist aega: {}", current, pythonTime);
+            workerInput.close();
+            workerOutput.close();
+        } catch (IOException ignored) {
+        }
+        worker = null;
+    }
+
+    /**
+     * Loeb püsiva protsessi vastuste voost järgmise vastuse
+     *
+     * @return vastuse sisu või null, kui protsess lõpetas töö
+     */
+    private String readResponse() throws IOException {
+        return parseResponse(workerOutput);
+    }
+
+    /**
+     * Loeb vastuste voost järgmise tööaega sisaldava rea. Tundmatud read jäetakse vahele
+     *
+     * @param reader vastuste voog
+     * @return vastuse sisu või null, kui voog lõppes
+     */
+    static String parseResponse(BufferedReader reader) throws IOException {
+        String line;
+        while ((line = reader.readLine()) != null) {
+            if (line.startsWith(RESPONSE_PREFIX)) {
+                return line.substring(RESPONSE_PREFIX.length());
             }
-            results.addTime(current, pythonTime);
-            return pythonTime;
-        } catch (IOException e) {
-            e.printStackTrace();
+            logger.warn("Pythoni protsessi tundmatu vastus: {}", line);
         }
-        return -1;
+        return null;
     }
 
     /**
@@ -190,61 +433,65 @@ public class PythonExecutor extends FunctionExecutor {
         } catch (TimeoutException e) {
             p.destroy();
             logger.error("Sisendi suurusega {} läheb liiga kaua aega", i);
-            System.exit(1);
+            throw new AnalysisException("Sisendi suurusega " + i + " läheb liiga kaua aega");
         }
     }
 
 
     /**
-     * Käivitab etteantud testkomplekti ühe testjuhu. Kirjutab väljundisse, kas meetod andis õige tulemuse
+     * Käivitab etteantud testkomplekti ühe testjuhu eraldi Pythoni protsessis. Kirjutab väljundisse, kas programm andis
+     * õige tulemuse. Sisendfail suunatakse protsessi standardsisendisse, väljund loetakse protsessi töö ajal eraldi
+     * lõimes ning võrreldakse oodatud väljundiga lugemise ajal. Esimese erinevuse korral protsess lõpetatakse ning
+     * tööaega ei salvestata
      *
      * @param testCase testjuhu järjekorranumber
-     * @return kas käivitamine õnnestus
      */
-    private boolean invokeManual(String testCase) {
+    private void invokeManual(String testCase) {
         String testLocation = Config.value("source.tests");
-        if (!Files.exists(Paths.get(testLocation, String.format("meta%s.txt", testCase)))) {
-            return false;
-        }
         long input_size = Long.parseLong(Config.get(Paths.get(testLocation, String.format("meta%s.txt", testCase)).toString()).getProperty("input_size"));
         ProcessBuilder pb = new ProcessBuilder("python3", source.toAbsolutePath().toString());
         pb.redirectErrorStream(true);
-        try {
+        // operatsioonisüsteem annab sisendfaili protsessile otse, seega sisendit ei kopeerita ega kirjutata eraldi
+        // lõimes
+        pb.redirectInput(ProcessBuilder.Redirect.from(Paths.get(testLocation, String.format("input%s.txt", testCase)).toFile()));
+        try (OutputVerifier verifier = new OutputVerifier(Paths.get(testLocation, String.format("output%s.txt", testCase)), false)) {
             long time = System.currentTimeMillis();
             Process p = pb.start();
-            OutputStream stdin = p.getOutputStream();
-            InputStream stdout = p.getInputStream();
-            InputStream fileIS = Files.newInputStream(Paths.get(testLocation, String.format("input%s.txt", testCase)));
-            InputStream inputStream = new BufferedInputStream(fileIS);
-            copyStream(inputStream, stdin);
-            stdin.flush();
-            stdin.close();
-            inputStream.close();
-            fileIS.close();
+            Future<?> reader = workerReader.submit(() -> {
+                byte[] buffer = new byte[4096];
+                try (InputStream stdout = p.getInputStream()) {
+                    int bytesRead;
+                    while ((bytesRead = stdout.read(buffer)) != -1) {
+                        verifier.write(buffer, 0, bytesRead);
+                        if (!verifier.matches()) {
+                            p.destroyForcibly();
+                            break;
+                        }
+                    }
+                }
+                return null;
+            });
 
             waitForProcess(p, input_size);
-            InputStreamReader stdoutStreamReader = new InputStreamReader(stdout, Charset.forName("UTF-8"));
-            BufferedReader stdoutReader = new BufferedReader(stdoutStreamReader);
-            List<String> functionOutput = stdoutReader.lines().collect(Collectors.toList());
-            stdout.close();
-            stdoutStreamReader.close();
-            stdoutReader.close();
-            List<String> expectedOutput = Files.readAllLines(Paths.get(testLocation, String.format("output%s.txt", testCase)));
-
-            long endTime = System.currentTimeMillis();
-            long timeTaken = endTime - time;
-            results.addTime(input_size, timeTaken);
-            if (functionOutput.equals(expectedOutput)) {
-                logger.info("Programm väljastas õige vastuse '{}'", functionOutput);
-            } else {
-                logger.error("Programm väljastas '{}', aga pidi väljastama '{}'", functionOutput, expectedOutput);
+            try {
+                reader.get();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                p.destroy();
+                throw new AnalysisException("Analüüs katkestati");
+            } catch (ExecutionException e) {
+                if (e.getCause() instanceof IOException) throw (IOException) e.getCause();
+                if (e.getCause() instanceof Error) throw (Error) e.getCause();
+                throw (RuntimeException) e.getCause();
             }
 
+            long endTime = System.currentTimeMillis();
+            double timeTaken = endTime - time;
+            if (verifier.matches()) results.addTime(input_size, timeTaken);
+            logVerdict(testCase, verifier);
         } catch (IOException e) {
             logger.error("Probleem käivitamisega", e);
         }
-        return true;
     }
 
-
 }
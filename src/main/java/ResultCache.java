@@ -0,0 +1,319 @@
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.channels.FileLock;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeSet;
+
+/**
+ * Klass ResultCache hoiab analüüside tulemusi kettal, et sama sisuga esitust uuesti ei mõõdetaks. Võtmeks on
+ * normaliseeritud lähtekoodi, sisendi genereerija, mõõtmist mõjutavate seadete ning Java või Pythoni versiooni
+ * SHA-256 räsi.
+ * <p>
+ * Tulemused lisatakse mälukaardistatud faili cache.file lõppu kujul [pikkus][võti][viimane kasutus][andmed], seega
+ * saavad mitu protsessi faili korraga kasutada. Faili päises on järjestikune põlvkonna number ning kirjete lõpu
+ * asukoht. Faili lukustatakse päise piirkonnas: lugemisel jagatud, kirjutamisel ainuõigusega lukuga. Kui fail
+ * (cache.size baiti) saab täis, kirjutatakse see üle, jättes alles viimati kasutatud kirjed poole mahu ulatuses.
+ * Olemasoleva faili suurust ei muudeta, seega kasutavad kõik protsessid sama mahtu ka erineva seade cache.size korral.
+ */
+public class ResultCache {
+    private static final Logger logger = LoggerFactory.getLogger(ResultCache.class);
+    private static final int MAGIC = 0x54434331;
+    private static final int HEADER = 16;
+    private static final int KEY = 32;
+    private static final int RECORD_HEADER = 4 + KEY + 8;
+    private static final List<String> IGNORED = Arrays.asList("cache.", "compile.", "batch.", "job.", "source.java",
+            "source.python", "source.tests", "output.printtimes", "output.printprogress", "output.regression",
+            "output.predictions", "worker.count", "measure.threads", "server.");
+    private static ResultCache shared;
+    private static boolean opened = false;
+    private static String pythonVersion;
+
+    private final FileChannel channel;
+    private final MappedByteBuffer buffer;
+    private final Map<String, Integer> index = new HashMap<>();
+    private int generation = -1;
+    private int scanned = HEADER;
+
+    /**
+     * @param file     vahemälu fail
+     * @param capacity faili suurus baitides, kui fail on juba olemas, kasutatakse selle suurust
+     */
+    ResultCache(Path file, int capacity) throws IOException {
+        channel = FileChannel.open(file, StandardOpenOption.CREATE, StandardOpenOption.READ, StandardOpenOption.WRITE);
+        FileLock lock = channel.lock(0, HEADER, false);
+        try {
+            long size = channel.size();
+            int mapped = size < HEADER || size > Integer.MAX_VALUE ? capacity : (int) size;
+            if (mapped != capacity)
+                logger.info("Vahemälu fail {} on {} baiti, seadet cache.size ei kasutata", file, mapped);
+            buffer = channel.map(FileChannel.MapMode.READ_WRITE, 0, mapped);
+            if (buffer.getInt(0) != MAGIC || buffer.getLong(8) < HEADER || buffer.getLong(8) > mapped) {
+                buffer.putInt(4, 0);
+                buffer.putLong(8, HEADER);
+                buffer.putInt(0, MAGIC);
+            }
+        } finally {
+            lock.release();
+        }
+    }
+
+    /**
+     * Tagastab protsessi ühise vahemälu. Seadega cache.file määratakse vahemälu fail, selle puudumisel vahemälu ei
+     * kasutata
+     *
+     * @return vahemälu või null, kui see on välja lülitatud
+     */
+    public static synchronized ResultCache shared() {
+        if (opened) return shared;
+        opened = true;
+        String file = Config.value("cache.file");
+        if (file == null || file.isEmpty()) return null;
+        int capacity = Math.toIntExact(Config.valueAsLong("cache.size", 64L * 1024 * 1024));
+        try {
+            shared = new ResultCache(Paths.get(file), capacity);
+        } catch (IOException e) {
+            logger.warn("Vahemälu faili {} ei õnnestunud avada: {}", file, String.valueOf(e));
+        }
+        return shared;
+    }
+
+    /**
+     * Koostab analüüsi võtme
+     *
+     * @param source  vaadeldav fail
+     * @param dataGen sisendi genereerija fail, mille puudumine on lubatud
+     * @param runtime Java või Pythoni versioon
+     * @return võti kuueteistkümnendsüsteemis
+     */
+    public static String key(Path source, Path dataGen, String runtime) throws IOException {
+        MessageDigest digest;
+        try {
+            digest = MessageDigest.getInstance("SHA-256");
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+        update(digest, source.getFileName().toString());
+        update(digest, normalize(source));
+        update(digest, Files.exists(dataGen) ? normalize(dataGen) : "");
+        update(digest, runtime);
+        for (String name : new TreeSet<>(Config.names())) {
+            if (IGNORED.stream().anyMatch(name::startsWith)) continue;
+            update(digest, name + "=" + Config.value(name));
+        }
+        StringBuilder key = new StringBuilder();
+        for (byte b : digest.digest()) {
+            key.append(String.format("%02x", b));
+        }
+        return key.toString();
+    }
+
+    private static void update(MessageDigest digest, String value) {
+        byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+        digest.update(ByteBuffer.allocate(4).putInt(bytes.length).array());
+        digest.update(bytes);
+    }
+
+    /**
+     * Loeb faili ning eemaldab erinevused, mis ei mõjuta programmi tööd: reavahetuste kuju ning tühikud ridade lõpus
+     *
+     * @param file loetav fail
+     * @return normaliseeritud sisu
+     */
+    private static String normalize(Path file) throws IOException {
+        String text = new String(Files.readAllBytes(file), StandardCharsets.UTF_8);
+        return text.replace("\r\n", "\n").replace('\r', '\n').replaceAll("[ \t]+\n", "\n").trim();
+    }
+
+    /**
+     * @return Pythoni interpretaatori versioon
+     */
+    public static synchronized String pythonVersion() {
+        if (pythonVersion != null) return pythonVersion;
+        try {
+            Process process = new ProcessBuilder("python3", "--version").redirectErrorStream(true).start();
+            try (BufferedReader reader = new BufferedReader(
+                    new InputStreamReader(process.getInputStream(), StandardCharsets.UTF_8))) {
+                String line = reader.readLine();
+                pythonVersion = line == null ? "" : line.trim();
+            }
+            process.waitFor();
+        } catch (IOException e) {
+            pythonVersion = "";
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return "";
+        }
+        return pythonVersion;
+    }
+
+    /**
+     * Otsib võtmele vastavad andmed ning märgib need viimati kasutatuks
+     *
+     * @param key analüüsi võti
+     * @return salvestatud andmed või null, kui neid pole
+     */
+    public synchronized byte[] get(String key) {
+        FileLock lock = null;
+        try {
+            lock = channel.lock(0, HEADER, true);
+            refresh();
+            Integer position = index.get(key);
+            if (position == null) return null;
+            int length = buffer.getInt(position);
+            // viimase kasutuse aja samaaegne ülekirjutamine on ohutu, sest iga kirjutaja kirjutab kehtiva väärtuse
+            buffer.putLong(position + 4 + KEY, System.currentTimeMillis());
+            byte[] data = new byte[length];
+            for (int i = 0; i < length; i++) {
+                data[i] = buffer.get(position + RECORD_HEADER + i);
+            }
+            return data;
+        } catch (IOException e) {
+            logger.warn("Vahemälu lugemine ebaõnnestus: {}", String.valueOf(e));
+            return null;
+        } finally {
+            release(lock);
+        }
+    }
+
+    /**
+     * Lisab andmed vahemälu lõppu, vajadusel eemaldades kõige kauem kasutamata kirjed
+     *
+     * @param key  analüüsi võti
+     * @param data salvestatavad andmed
+     */
+    public synchronized void put(String key, byte[] data) {
+        int length = RECORD_HEADER + data.length;
+        if (length > (buffer.capacity() - HEADER) / 2) {
+            logger.warn("Tulemus on vahemälu jaoks liiga suur: {} baiti", data.length);
+            return;
+        }
+        FileLock lock = null;
+        try {
+            lock = channel.lock(0, HEADER, false);
+            refresh();
+            if (end() + length > buffer.capacity()) compact(buffer.capacity() / 2 - length);
+            int position = end();
+            write(position, key, System.currentTimeMillis(), data);
+            buffer.putLong(8, position + length);
+            index.put(key, position);
+            scanned = position + length;
+        } catch (IOException e) {
+            logger.warn("Vahemällu kirjutamine ebaõnnestus: {}", String.valueOf(e));
+        } finally {
+            release(lock);
+        }
+    }
+
+    private static void release(FileLock lock) {
+        if (lock == null) return;
+        try {
+            lock.release();
+        } catch (IOException e) {
+            logger.warn("Vahemälu luku vabastamine ebaõnnestus: {}", String.valueOf(e));
+        }
+    }
+
+    private int end() {
+        return (int) buffer.getLong(8);
+    }
+
+    private void write(int position, String key, long used, byte[] data) {
+        buffer.putInt(position, data.length);
+        byte[] keyBytes = hex(key);
+        for (int i = 0; i < KEY; i++) {
+            buffer.put(position + 4 + i, keyBytes[i]);
+        }
+        buffer.putLong(position + 4 + KEY, used);
+        for (int i = 0; i < data.length; i++) {
+            buffer.put(position + RECORD_HEADER + i, data[i]);
+        }
+    }
+
+    /**
+     * Loeb indeksisse teiste protsesside poolt lisatud kirjed. Kui fail on vahepeal üle kirjutatud, loetakse kogu fail
+     */
+    private void refresh() {
+        int current = buffer.getInt(4);
+        if (current != generation) {
+            generation = current;
+            index.clear();
+            scanned = HEADER;
+        }
+        int end = end();
+        while (scanned < end) {
+            index.put(keyAt(scanned), scanned);
+            scanned += RECORD_HEADER + buffer.getInt(scanned);
+        }
+    }
+
+    /**
+     * Kirjutab faili üle, jättes alles viimati kasutatud kirjed, mille kogumaht ei ületa etteantud piiri
+     *
+     * @param limit alles jäävate kirjete suurim kogumaht baitides
+     */
+    private void compact(int limit) {
+        List<Integer> positions = new ArrayList<>(index.values());
+        positions.sort((a, b) -> Long.compare(buffer.getLong(b + 4 + KEY), buffer.getLong(a + 4 + KEY)));
+        List<byte[]> kept = new ArrayList<>();
+        int total = 0;
+        for (int position : positions) {
+            int length = RECORD_HEADER + buffer.getInt(position);
+            if (total + length > limit) break;
+            byte[] record = new byte[length];
+            for (int i = 0; i < length; i++) {
+                record[i] = buffer.get(position + i);
+            }
+            kept.add(record);
+            total += length;
+        }
+        logger.info("Vahemälu on täis, alles jäetakse {} kirjet {}-st", kept.size(), positions.size());
+        index.clear();
+        int position = HEADER;
+        // vanemad kirjed enne, et kasutusjärjekord säiliks ka järgmisel ülekirjutamisel
+        for (int i = kept.size() - 1; i >= 0; i--) {
+            byte[] record = kept.get(i);
+            for (int j = 0; j < record.length; j++) {
+                buffer.put(position + j, record[j]);
+            }
+            index.put(keyAt(position), position);
+            position += record.length;
+        }
+        buffer.putLong(8, position);
+        buffer.putInt(4, ++generation);
+        scanned = position;
+    }
+
+    private String keyAt(int position) {
+        StringBuilder key = new StringBuilder();
+        for (int i = 0; i < KEY; i++) {
+            key.append(String.format("%02x", buffer.get(position + 4 + i)));
+        }
+        return key.toString();
+    }
+
+    private static byte[] hex(String key) {
+        byte[] bytes = new byte[KEY];
+        for (int i = 0; i < KEY; i++) {
+            bytes[i] = (byte) Integer.parseInt(key.substring(2 * i, 2 * i + 2), 16);
+        }
+        return bytes;
+    }
+}
@@ -1,77 +1,410 @@
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
-import java.util.*;
+import java.io.DataOutput;
+import java.io.EOFException;
+import java.io.IOException;
+import java.nio.BufferUnderflowException;
+import java.nio.ByteBuffer;
+import java.util.Arrays;
 
 /**
- * Klass ResultHolder on kasutusel käivituse käigus saadud andmete kogumiseks ning esitamiseks.
+ * Klass ResultHolder on kasutusel käivituse käigus saadud andmete kogumiseks ning esitamiseks. Andmeid hoitakse
+ * sisendi suuruse järgi sorteeritud primitiivsetes massiivides ning iga suuruse kohta peetakse jooksvalt arvet
+ * mõõtmiste arvu, keskmise ja dispersiooni (Welfordi meetodil) ning miinimumi üle. Ajapiirangu ületanud käivitusi
+ * hoitakse paremalt tsenseeritud vaatlustena, mille kohta on teada vaid tööaja alumine piir.
  */
 public class ResultHolder {
     private static final Logger logger = LoggerFactory.getLogger(ResultHolder.class);
-    private Map<Long, List<Long>> results = new HashMap<>();
+    private static final int INITIAL_CAPACITY = 16;
+    // writeTo kirjutatud rea pikkus ilma tööaegadeta
+    private static final int ROW_BYTES = 8 + 4 + 4 + 4 * 8;
+
+    /**
+     * Hinnang, mille abil ühe sisendi suuruse mõõtmistest üks tööaeg leitakse
+     */
+    public enum Estimator {
+        MEAN, MEDIAN, MIN, TRIMMED;
+
+        /**
+         * Leiab seade result.estimator väärtusele vastava hinnangu
+         *
+         * @param value hinnangu nimi
+         * @return hinnang
+         */
+        public static Estimator parse(String value) {
+            for (Estimator estimator : values()) {
+                if (estimator.name().equalsIgnoreCase(value.trim())) return estimator;
+            }
+            throw new AnalysisException("Seadistuse probleem: result.estimator peab olema 'mean', 'median', 'min' või 'trimmed', aga on '" + value + "'");
+        }
+    }
+
+    private final Estimator estimator = Estimator.parse(Config.valueAsString("result.estimator", "mean"));
+    private final double trim = trim(Config.valueAsDouble("result.trim", 0.1));
+    private final String verdict;
+    private final double tolerance;
+    private Journal journal;
+    private int journalIndex;
+    private int size = 0;
+    private long[] sizes = new long[INITIAL_CAPACITY];
+    private int[] counts = new int[INITIAL_CAPACITY];
+    private int[] timeouts = new int[INITIAL_CAPACITY];
+    private double[] means = new double[INITIAL_CAPACITY];
+    private double[] squares = new double[INITIAL_CAPACITY];
+    private double[] minimums = new double[INITIAL_CAPACITY];
+    private double[] bounds = new double[INITIAL_CAPACITY];
+    private double[][] samples = new double[INITIAL_CAPACITY][];
+
+    /**
+     * Koostab tööaegade hoidla. Tööaegu konstantseks ei loeta isegi siis, kui kõik mõõtmised andsid sama tulemuse,
+     * sest kiire meetodi tööajad võivad ümardamise tõttu võrdsed olla ka kasvava tööaja korral
+     */
+    public ResultHolder() {
+        this("Oletatav ajaline keerukus", -1);
+    }
+
+    /**
+     * @param verdict   leitud keerukusele eelnev tekst Moodle'i kommentaaris
+     * @param tolerance kui palju võivad väärtused erineda, et neid loetaks konstantseks, negatiivse väärtuse korral
+     *                  leitakse keerukus alati klassiga ComplexityFinder
+     */
+    public ResultHolder(String verdict, double tolerance) {
+        this.verdict = verdict;
+        this.tolerance = tolerance;
+    }
+
+    /**
+     * Seob hoidla töö päevikuga, kuhu lisatakse edaspidi iga salvestatud mõõtmine
+     *
+     * @param journal päevik
+     * @param index   hoidla järjekorranumber päevikus
+     */
+    synchronized void journal(Journal journal, int index) {
+        this.journal = journal;
+        this.journalIndex = index;
+    }
 
     /**
      * Salvestab käivituse andmed
      *
      * @param inputSize sisendi suurus
-     * @param time      kulunud aeg millisekundites
+     * @param time      kulunud aeg millisekundites, null kui käivitus ei lõppenud ettenähtud aja jooksul
+     */
+    public synchronized void addTime(long inputSize, Double time) {
+        if (journal != null) journal.time(journalIndex, inputSize, time);
+        int index = indexOf(inputSize);
+        if (time == null) {
+            timeouts[index]++;
+            return;
+        }
+        int count = ++counts[index];
+        double delta = time - means[index];
+        means[index] += delta / count;
+        squares[index] += delta * (time - means[index]);
+        minimums[index] = count == 1 ? time : Math.min(minimums[index], time);
+        double[] values = samples[index];
+        if (values.length < count) {
+            values = samples[index] = Arrays.copyOf(values, Math.max(4, values.length * 2));
+        }
+        int position = count - 1;
+        while (position > 0 && values[position - 1] > time) {
+            values[position] = values[position - 1];
+            position--;
+        }
+        values[position] = time;
+    }
+
+    /**
+     * Salvestab käivituse, mis ei lõppenud ettenähtud aja jooksul. Kui sisendi suurusel ükski mõõtmine ei õnnestu,
+     * kasutatakse keerukuse leidmisel tööaja alumise piirina suurimat salvestatud ajapiirangut
+     *
+     * @param inputSize sisendi suurus
+     * @param limit     ajapiirang millisekundites, mille käivitus ületas
      */
-    public synchronized void addTime(long inputSize, Long time) {
-        results.putIfAbsent(inputSize, new ArrayList<>());
-        results.get(inputSize).add(time);
+    public synchronized void addTimeout(long inputSize, double limit) {
+        if (journal != null) journal.timeout(journalIndex, inputSize, limit);
+        int index = indexOf(inputSize);
+        timeouts[index]++;
+        bounds[index] = Math.max(bounds[index], limit);
     }
 
     /**
-     * Leiab ühesuguse sisendite suuruste tööaegadest keskmise
+     * Leiab sisendi suuruse asukoha massiivides, puudumise korral lisab selle sorteeritud järjekorda
      *
-     * @return sisendi suuruse järgi sorteeritud keskmised tööajad
-     */
-    private TreeMap<Long, Long> average() {
-        TreeMap<Long, Long> average = new TreeMap<>();
-        for (Map.Entry<Long, List<Long>> entry : results.entrySet()) {
-            OptionalDouble avg = entry.getValue().stream().filter(Objects::nonNull).mapToLong(v -> v).average();
-            if (avg.isPresent()) {
-                average.put(entry.getKey(), (long) avg.getAsDouble());
-            } else {
-                average.put(entry.getKey(), null);
-            }
+     * @param inputSize sisendi suurus
+     * @return sisendi suuruse indeks
+     */
+    private int indexOf(long inputSize) {
+        int index = Arrays.binarySearch(sizes, 0, size, inputSize);
+        if (index >= 0) return index;
+        index = -index - 1;
+        if (size == sizes.length) {
+            int capacity = sizes.length * 2;
+            sizes = Arrays.copyOf(sizes, capacity);
+            counts = Arrays.copyOf(counts, capacity);
+            timeouts = Arrays.copyOf(timeouts, capacity);
+            means = Arrays.copyOf(means, capacity);
+            squares = Arrays.copyOf(squares, capacity);
+            minimums = Arrays.copyOf(minimums, capacity);
+            bounds = Arrays.copyOf(bounds, capacity);
+            samples = Arrays.copyOf(samples, capacity);
+        }
+        int moved = size - index;
+        System.arraycopy(sizes, index, sizes, index + 1, moved);
+        System.arraycopy(counts, index, counts, index + 1, moved);
+        System.arraycopy(timeouts, index, timeouts, index + 1, moved);
+        System.arraycopy(means, index, means, index + 1, moved);
+        System.arraycopy(squares, index, squares, index + 1, moved);
+        System.arraycopy(minimums, index, minimums, index + 1, moved);
+        System.arraycopy(bounds, index, bounds, index + 1, moved);
+        System.arraycopy(samples, index, samples, index + 1, moved);
+        sizes[index] = inputSize;
+        counts[index] = 0;
+        timeouts[index] = 0;
+        means[index] = 0;
+        squares[index] = 0;
+        minimums[index] = 0;
+        bounds[index] = 0;
+        samples[index] = new double[2];
+        size++;
+        return index;
+    }
+
+    /**
+     * Kontrollib kärbitud keskmise jaoks mõlemast otsast eemaldatavat osa. Vähemalt pool väärtustest eemaldades ei
+     * jääks keskmistamiseks midagi alles
+     *
+     * @param trim seade result.trim väärtus
+     * @return eemaldatav osa vahemikus [0, 0.5)
+     */
+    private static double trim(double trim) {
+        if (!(trim >= 0 && trim < 0.5))
+            throw new AnalysisException("Seadistuse probleem: result.trim peab olema vahemikus [0, 0.5), aga on " + trim);
+        return trim;
+    }
+
+    /**
+     * Leiab ühe sisendi suuruse mõõtmistest tööaja hinnangu
+     *
+     * @param index     sisendi suuruse indeks
+     * @param estimator kasutatav hinnang
+     * @return tööaeg või NaN, kui õnnestunud mõõtmisi pole
+     */
+    private double estimate(int index, Estimator estimator) {
+        int count = counts[index];
+        if (count == 0) return Double.NaN;
+        double[] values = samples[index];
+        switch (estimator) {
+            case MEDIAN:
+                return count % 2 == 1 ? values[count / 2] : (values[count / 2 - 1] + values[count / 2]) / 2;
+            case MIN:
+                return minimums[index];
+            case TRIMMED:
+                int cut = (int) (count * trim);
+                double sum = 0;
+                for (int i = cut; i < count - cut; i++) {
+                    sum += values[i];
+                }
+                return sum / (count - 2 * cut);
+            default:
+                return means[index];
         }
-        return average;
+    }
+
+    /**
+     * Tagastab ühe sisendi suuruse mõõtmiste dispersiooni
+     *
+     * @param index sisendi suuruse indeks
+     * @return valimi dispersioon või NaN, kui mõõtmisi on vähem kui kaks
+     */
+    private double variance(int index) {
+        return counts[index] < 2 ? Double.NaN : squares[index] / (counts[index] - 1);
     }
 
     /**
      * Väljastab kogutud andmed sisendi suuruse alusel sorteeritult
      */
-    public void printResults() {
-        TreeMap<Long, Long> average = average();
-        NavigableSet<Long> keySet = average.navigableKeySet();
-        logger.info("Sisendi suurus, Kulunud aeg");
-        for (Long key : keySet) {
-            logger.info("{} , {}", key, average.get(key));
+    public synchronized void printResults() {
+        logger.info("Sisendi suurus, Kulunud aeg, Mõõtmisi, Standardhälve, Ajapiirangu ületusi");
+        for (int i = 0; i < size; i++) {
+            logger.info("{} , {}, {}, {}, {}", sizes[i], estimate(i, estimator), counts[i], Math.sqrt(variance(i)), timeouts[i]);
         }
     }
 
     /**
-     * Kutsub välja ajalise keerukuse leidmise meetodi klassist ComplexityFinder
+     * Kutsub välja ajalise keerukuse leidmise meetodi klassist ComplexityFinder, kasutades seadega result.estimator
+     * määratud hinnangut
      *
      * @return Moodle'i formaadis kommentaar, mis sisaldab leitud ajalist keerukust
      */
     public String getFunction() {
-        double[] x = new double[results.size()];
-        double[] y = new double[results.size()];
-        int i = 0;
-        for (Map.Entry<Long, Long> entry : average().entrySet()) {
-            x[i] = entry.getKey();
-            y[i] = entry.getValue();
-            i++;
+        return getFunction(estimator);
+    }
+
+    /**
+     * Kutsub välja ajalise keerukuse leidmise meetodi klassist ComplexityFinder. Sisendi suurused, mille korral ükski
+     * mõõtmine ei õnnestunud, antakse edasi tsenseeritud punktidena, mille tööajaks on ületatud ajapiirang. Kui
+     * ajapiirang pole teada, jäetakse sisendi suurus välja
+     *
+     * @param estimator hinnang, mille abil ühe sisendi suuruse mõõtmistest tööaeg leitakse
+     * @return Moodle'i formaadis kommentaar, mis sisaldab leitud ajalist keerukust
+     */
+    public synchronized String getFunction(Estimator estimator) {
+        double[] x = new double[size];
+        double[] y = new double[size];
+        boolean[] censored = new boolean[size];
+        int points = 0;
+        boolean anyCensored = false;
+        for (int i = 0; i < size; i++) {
+            if (counts[i] == 0) {
+                if (bounds[i] <= 0) continue;
+                y[points] = bounds[i];
+                censored[points] = anyCensored = true;
+            } else {
+                y[points] = estimate(i, estimator);
+            }
+            x[points] = sizes[i];
+            points++;
+        }
+        if (anyCensored) logger.info("Ajapiirangu ületanud sisendi suurusi kasutatakse tööaja alumise piirina");
+        String function = tolerance >= 0 && !anyCensored && points >= 10 && constant(y, points, tolerance) ? "1" :
+                ComplexityFinder.findFunction(Arrays.copyOf(x, points), Arrays.copyOf(y, points),
+                        anyCensored ? Arrays.copyOf(censored, points) : null);
+        if (function.isEmpty()) logger.warn("Liiga vähe andmeid, et keerukust leida, andmemaht: {}", points);
+        return "Comment :=>> " + verdict + ": O(" + function + ")";
+    }
+
+    /**
+     * Kontrollib, kas kõik väärtused on lubatud erinevuse piires võrdsed. Nii juhtub näiteks mälukasutuse mõõtmisel,
+     * kui meetod mälu ei eralda
+     *
+     * @param y         väärtused
+     * @param points    väärtuste arv
+     * @param tolerance lubatud erinevus
+     * @return kas väärtused on võrdsed
+     */
+    private static boolean constant(double[] y, int points, double tolerance) {
+        double min = Double.POSITIVE_INFINITY;
+        double max = Double.NEGATIVE_INFINITY;
+        for (int i = 0; i < points; i++) {
+            min = Math.min(min, y[i]);
+            max = Math.max(max, y[i]);
+        }
+        return max - min <= tolerance;
+    }
+
+    /**
+     * Kirjutab kogutud andmed väljundisse, et neid saaks hiljem meetodiga readFrom taastada
+     *
+     * @param out väljund
+     */
+    public synchronized void writeTo(DataOutput out) throws IOException {
+        out.writeInt(size);
+        for (int i = 0; i < size; i++) {
+            out.writeLong(sizes[i]);
+            out.writeInt(counts[i]);
+            out.writeInt(timeouts[i]);
+            out.writeDouble(means[i]);
+            out.writeDouble(squares[i]);
+            out.writeDouble(minimums[i]);
+            out.writeDouble(bounds[i]);
+            for (int j = 0; j < counts[i]; j++) {
+                out.writeDouble(samples[i][j]);
+            }
+        }
+    }
+
+    /**
+     * Asendab hoidlate andmed meetodiga writeTo järjest kirjutatud andmetega. Hoidlaid muudetakse ainult siis, kui
+     * kõigi hoidlate andmed õnnestus lugeda
+     *
+     * @param data    meetodiga writeTo kirjutatud andmed
+     * @param holders hoidlad kirjutamise järjekorras
+     */
+    public static void readFrom(byte[] data, ResultHolder... holders) throws IOException {
+        ByteBuffer in = ByteBuffer.wrap(data);
+        ResultHolder[] read = new ResultHolder[holders.length];
+        try {
+            for (int i = 0; i < holders.length; i++) {
+                read[i] = new ResultHolder();
+                read[i].read(in);
+            }
+        } catch (BufferUnderflowException e) {
+            throw new EOFException("Andmed lõppesid enne viimast rida");
+        }
+        for (int i = 0; i < holders.length; i++) {
+            holders[i].replace(read[i]);
+        }
+    }
+
+    /**
+     * Loeb meetodiga writeTo kirjutatud andmed tühja hoidlasse. Ridade ja tööaegade arvu kontrollitakse allesjäänud
+     * andmete pikkuse suhtes, et vigased andmed ei põhjustaks suurt mälukasutust
+     *
+     * @param in sisend
+     */
+    private void read(ByteBuffer in) throws IOException {
+        int rows = in.getInt();
+        if (rows < 0 || rows > in.remaining() / ROW_BYTES) throw new IOException("Vigane ridade arv " + rows);
+        int capacity = Math.max(INITIAL_CAPACITY, rows);
+        sizes = new long[capacity];
+        counts = new int[capacity];
+        timeouts = new int[capacity];
+        means = new double[capacity];
+        squares = new double[capacity];
+        minimums = new double[capacity];
+        bounds = new double[capacity];
+        samples = new double[capacity][];
+        for (int i = 0; i < rows; i++) {
+            sizes[i] = in.getLong();
+            counts[i] = in.getInt();
+            timeouts[i] = in.getInt();
+            means[i] = in.getDouble();
+            squares[i] = in.getDouble();
+            minimums[i] = in.getDouble();
+            bounds[i] = in.getDouble();
+            if (counts[i] < 0 || counts[i] > in.remaining() / 8)
+                throw new IOException("Vigane tööaegade arv " + counts[i]);
+            samples[i] = new double[Math.max(2, counts[i])];
+            for (int j = 0; j < counts[i]; j++) {
+                samples[i][j] = in.getDouble();
+            }
         }
-        String function = ComplexityFinder.findFunction(x, y);
-        if (function.isEmpty()) logger.warn("Liiga vähe andmeid, et keerukust leida, andmemaht: {}", results.size());
-        return "Comment :=>> Oletatav ajaline keerukus: O(" + function + ")";
+        size = rows;
+    }
+
+    /**
+     * Asendab kogutud andmed teise hoidla andmetega
+     *
+     * @param other hoidla, mida edasi ei kasutata
+     */
+    private synchronized void replace(ResultHolder other) {
+        size = other.size;
+        sizes = other.sizes;
+        counts = other.counts;
+        timeouts = other.timeouts;
+        means = other.means;
+        squares = other.squares;
+        minimums = other.minimums;
+        bounds = other.bounds;
+        samples = other.samples;
+    }
+
+    /**
+     * @return kas andmeid pole kogutud
+     */
+    public synchronized boolean isEmpty() {
+        return size == 0;
     }
 
     @Override
-    public String toString() {
-        return "ResultHolder{" + "results=" + results + '}';
+    public synchronized String toString() {
+        StringBuilder builder = new StringBuilder("ResultHolder{results={");
+        for (int i = 0; i < size; i++) {
+            if (i > 0) builder.append(", ");
+            builder.append(sizes[i]).append('=').append(Arrays.toString(Arrays.copyOf(samples[i], counts[i])));
+        }
+        return builder.append("}}").toString();
     }
 }
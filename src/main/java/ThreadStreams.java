@@ -0,0 +1,268 @@
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.io.PrintStream;
+import java.io.UnsupportedEncodingException;
+import java.util.Locale;
+
+/**
+ * Klass ThreadStreams asendab System.in ning System.out voogudega, mis suunavad lugemise ja kirjutamise lõime jaoks
+ * määratud voogudesse. Nii saab mitut testjuhtu samas protsessis korraga käivitada. Lõime määratud vood kehtivad ka
+ * selle loodud lõimedes, ülejäänud lõimedes kasutatakse algseid vooge. Väljund kodeeritakse UTF-8 kujul. Iga lõim
+ * kirjutab oma PrintStream objekti kaudu, et väljundvoo erindi korral ei jääks kodeerimata märke teiste lõimede
+ * väljundisse.
+ */
+public final class ThreadStreams {
+    private static final InheritableThreadLocal<InputStream> input = new InheritableThreadLocal<>();
+    private static final InheritableThreadLocal<PrintStream> output = new InheritableThreadLocal<>();
+    private static volatile InputStream originalIn;
+    private static volatile PrintStream originalOut;
+    private static int installed = 0;
+
+    private ThreadStreams() {
+    }
+
+    /**
+     * Asendab System.in ning System.out suunavate voogudega. Iga väljakutse järel tuleb kutsuda välja uninstall
+     */
+    public static synchronized void install() {
+        if (installed++ > 0) return;
+        originalIn = System.in;
+        originalOut = System.out;
+        System.setOut(new RoutingPrintStream());
+        System.setIn(new InputStream() {
+            @Override
+            public int read() throws IOException {
+                return in().read();
+            }
+
+            @Override
+            public int read(byte[] b, int off, int len) throws IOException {
+                return in().read(b, off, len);
+            }
+
+            @Override
+            public int available() throws IOException {
+                return in().available();
+            }
+        });
+    }
+
+    /**
+     * Taastab algsed System.in ning System.out, kui kõik install väljakutsed on lõppenud
+     */
+    public static synchronized void uninstall() {
+        if (--installed > 0) return;
+        System.setIn(originalIn);
+        System.setOut(originalOut);
+    }
+
+    /**
+     * Määrab praeguse lõime sisend- ning väljundvoo
+     *
+     * @param in  sisendvoog
+     * @param out väljundvoog
+     */
+    public static void redirect(InputStream in, OutputStream out) {
+        input.set(in);
+        try {
+            output.set(new PrintStream(out, true, "UTF-8"));
+        } catch (UnsupportedEncodingException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    /**
+     * Eemaldab praeguse lõime vood
+     */
+    public static void reset() {
+        input.remove();
+        output.remove();
+    }
+
+    private static InputStream in() {
+        InputStream in = input.get();
+        return in != null ? in : originalIn;
+    }
+
+    private static PrintStream out() {
+        PrintStream out = output.get();
+        return out != null ? out : originalOut;
+    }
+
+    /**
+     * System.out asendus, mis suunab iga väljakutse praeguse lõime PrintStream objektile
+     */
+    private static final class RoutingPrintStream extends PrintStream {
+        private RoutingPrintStream() {
+            super(new OutputStream() {
+                @Override
+                public void write(int b) {
+                    out().write(b);
+                }
+            }, false);
+        }
+
+        @Override
+        public void write(int b) {
+            out().write(b);
+        }
+
+        @Override
+        public void write(byte[] buf, int off, int len) {
+            out().write(buf, off, len);
+        }
+
+        @Override
+        public void flush() {
+            out().flush();
+        }
+
+        @Override
+        public void close() {
+            out().close();
+        }
+
+        @Override
+        public boolean checkError() {
+            return out().checkError();
+        }
+
+        @Override
+        public void print(boolean b) {
+            out().print(b);
+        }
+
+        @Override
+        public void print(char c) {
+            out().print(c);
+        }
+
+        @Override
+        public void print(int i) {
+            out().print(i);
+        }
+
+        @Override
+        public void print(long l) {
+            out().print(l);
+        }
+
+        @Override
+        public void print(float f) {
+            out().print(f);
+        }
+
+        @Override
+        public void print(double d) {
+            out().print(d);
+        }
+
+        @Override
+        public void print(char[] s) {
+            out().print(s);
+        }
+
+        @Override
+        public void print(String s) {
+            out().print(s);
+        }
+
+        @Override
+        public void print(Object obj) {
+            out().print(obj);
+        }
+
+        @Override
+        public void println() {
+            out().println();
+        }
+
+        @Override
+        public void println(boolean x) {
+            out().println(x);
+        }
+
+        @Override
+        public void println(char x) {
+            out().println(x);
+        }
+
+        @Override
+        public void println(int x) {
+            out().println(x);
+        }
+
+        @Override
+        public void println(long x) {
+            out().println(x);
+        }
+
+        @Override
+        public void println(float x) {
+            out().println(x);
+        }
+
+        @Override
+        public void println(double x) {
+            out().println(x);
+        }
+
+        @Override
+        public void println(char[] x) {
+            out().println(x);
+        }
+
+        @Override
+        public void println(String x) {
+            out().println(x);
+        }
+
+        @Override
+        public void println(Object x) {
+            out().println(x);
+        }
+
+        @Override
+        public PrintStream printf(String format, Object... args) {
+            out().printf(format, args);
+            return this;
+        }
+
+        @Override
+        public PrintStream printf(Locale l, String format, Object... args) {
+            out().printf(l, format, args);
+            return this;
+        }
+
+        @Override
+        public PrintStream format(String format, Object... args) {
+            out().format(format, args);
+            return this;
+        }
+
+        @Override
+        public PrintStream format(Locale l, String format, Object... args) {
+            out().format(l, format, args);
+            return this;
+        }
+
+        @Override
+        public PrintStream append(CharSequence csq) {
+            out().append(csq);
+            return this;
+        }
+
+        @Override
+        public PrintStream append(CharSequence csq, int start, int end) {
+            out().append(csq, start, end);
+            return this;
+        }
+
+        @Override
+        public PrintStream append(char c) {
+            out().append(c);
+            return this;
+        }
+    }
+}
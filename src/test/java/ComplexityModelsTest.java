@@ -0,0 +1,16 @@
+import org.junit.Test;
+
+import static org.junit.Assert.assertEquals;
+
+public class ComplexityModelsTest {
+    @Test
+    public void parsesKnownCriteria() {
+        assertEquals(ComplexityModels.Criterion.AIC, ComplexityModels.Criterion.parse("aic"));
+        assertEquals(ComplexityModels.Criterion.BIC, ComplexityModels.Criterion.parse(" BIC "));
+    }
+
+    @Test(expected = AnalysisException.class)
+    public void rejectsUnknownCriterion() {
+        ComplexityModels.Criterion.parse("aci");
+    }
+}
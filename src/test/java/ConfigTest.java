@@ -0,0 +1,33 @@
+import org.junit.After;
+import org.junit.Test;
+
+import java.util.Properties;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+
+public class ConfigTest {
+    @After
+    public void tearDown() {
+        Config.setOverrides(null);
+    }
+
+    @Test
+    public void sharedThreadsDoNotInheritOverrides() throws Exception {
+        Properties config = new Properties();
+        config.setProperty("function.name", "analüüsi oma");
+        Config.setOverrides(config);
+        ExecutorService shared = Executors.newCachedThreadPool(Config.sharedThreads("test"));
+        ExecutorService owned = Executors.newSingleThreadExecutor();
+        try {
+            // lõim luuakse ülekattega lõimes, kuid jagatud kogumi lõim ülekatet ei päri
+            assertNull(shared.submit(() -> Config.overrides().getProperty("function.name")).get());
+            assertEquals("analüüsi oma", owned.submit(() -> Config.value("function.name")).get());
+        } finally {
+            shared.shutdownNow();
+            owned.shutdownNow();
+        }
+    }
+}
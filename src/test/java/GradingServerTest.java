@@ -0,0 +1,64 @@
+import org.junit.After;
+import org.junit.Test;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Properties;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+public class GradingServerTest {
+    @After
+    public void tearDown() {
+        Config.setOverrides(null);
+    }
+
+    private static Map<String, String> query(String... pairs) {
+        Map<String, String> query = new LinkedHashMap<>();
+        for (int i = 0; i < pairs.length; i += 2) {
+            query.put(pairs[i], pairs[i + 1]);
+        }
+        return query;
+    }
+
+    @Test
+    public void analysisSettingsCanBeOverridden() {
+        Properties overrides = GradingServer.overrides(query("function.name", "start", "measure.unit", "ops",
+                "job.id", "submission_12-a"));
+        assertEquals("start", overrides.getProperty("function.name"));
+        assertEquals("ops", overrides.getProperty("measure.unit"));
+        assertEquals("submission_12-a", overrides.getProperty("job.id"));
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void sharedSettingsAreRejected() {
+        GradingServer.overrides(query("cache.file", "/tmp/cache"));
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void measureThreadsIsRejected() {
+        GradingServer.overrides(query("measure.threads", "64"));
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void jobIdOutsideJobDirIsRejected() {
+        GradingServer.overrides(query("job.id", "../../etc/x"));
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void instrumentCancelIsRejected() {
+        GradingServer.overrides(query("instrument.cancel", "0"));
+    }
+
+    @Test
+    public void inProcessMeasurementsAreCancellable() {
+        Properties config = new Properties();
+        config.setProperty("worker.fork", "0");
+        Config.setOverrides(config);
+        assertEquals("1", GradingServer.forcedOverrides().getProperty("instrument.cancel"));
+        config.setProperty("worker.fork", "1");
+        Config.setOverrides(config);
+        assertTrue(GradingServer.forcedOverrides().isEmpty());
+    }
+}
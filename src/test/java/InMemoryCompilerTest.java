@@ -0,0 +1,48 @@
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertSame;
+
+public class InMemoryCompilerTest {
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    private Path write(String name, String source) throws Exception {
+        Path file = folder.getRoot().toPath().resolve(name);
+        Files.write(file, source.getBytes(StandardCharsets.UTF_8));
+        return file;
+    }
+
+    @Test
+    public void concurrentRequestsShareOneCompilation() throws Exception {
+        Path file = write("Shared.java", "public class Shared {\n    public static void start(long n) {\n    }\n}\n");
+        ExecutorService pool = Executors.newFixedThreadPool(4);
+        try {
+            List<Future<Map<String, byte[]>>> results = new ArrayList<>();
+            Callable<Map<String, byte[]>> compile = () -> InMemoryCompiler.compile(file);
+            for (int i = 0; i < 4; i++) {
+                results.add(pool.submit(compile));
+            }
+            Map<String, byte[]> first = results.get(0).get();
+            assertNotNull(first);
+            for (Future<Map<String, byte[]>> result : results) {
+                assertSame(first, result.get());
+            }
+        } finally {
+            pool.shutdownNow();
+        }
+    }
+}
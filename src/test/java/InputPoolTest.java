@@ -0,0 +1,109 @@
+import org.junit.After;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Properties;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotEquals;
+import static org.junit.Assert.assertNotSame;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+public class InputPoolTest {
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    @After
+    public void tearDown() {
+        Config.setOverrides(null);
+    }
+
+    @Test
+    public void mutatedListIsFreshOnNextRepeat() {
+        InputPool pool = new InputPool(n -> {
+            List<Long> list = new ArrayList<>();
+            for (long i = n; i > 0; i--) list.add(i);
+            return list;
+        });
+        @SuppressWarnings("unchecked")
+        List<Long> first = (List<Long>) pool.get(5);
+        Collections.sort(first);
+        @SuppressWarnings("unchecked")
+        List<Long> second = (List<Long>) pool.get(5);
+        assertNotSame(first, second);
+        assertEquals(Long.valueOf(5), second.get(0));
+    }
+
+    @Test
+    public void mutatedArrayIsFreshOnNextRepeat() {
+        InputPool pool = new InputPool(n -> new int[]{3, 2, 1});
+        int[] first = (int[]) pool.get(3);
+        first[0] = 0;
+        assertArrayEquals(new int[]{3, 2, 1}, (int[]) pool.get(3));
+    }
+
+    @Test
+    public void immutableValuesAndTheirArraysArePooled() {
+        assertTrue(InputPool.poolable(42L));
+        assertTrue(InputPool.poolable("abc"));
+        assertTrue(InputPool.poolable(new long[4]));
+        assertTrue(InputPool.poolable(new String[][]{{"a"}, {"b"}}));
+        assertFalse(InputPool.poolable(new ArrayList<>()));
+        assertFalse(InputPool.poolable(new Object[]{new StringBuilder()}));
+        Object value = "sisend";
+        InputPool pool = new InputPool(n -> value);
+        assertSame(value, pool.get(1));
+    }
+
+    @Test
+    public void poolStaysWithinByteLimit() {
+        Properties config = new Properties();
+        config.setProperty("input.pool.bytes", "100");
+        Config.setOverrides(config);
+        int[] generated = new int[1];
+        InputPool pool = new InputPool(n -> {
+            generated[0]++;
+            return new long[8];
+        });
+        pool.get(1);
+        pool.get(2);
+        pool.get(1);
+        // 80-baidine sisend mahub piiri, kahte korraga ei mahu, seega suurus 1 genereeritakse uuesti
+        assertEquals(3, generated[0]);
+        pool.get(1);
+        assertEquals(3, generated[0]);
+    }
+
+    @Test
+    public void editedDataGenGetsNewPool() throws Exception {
+        Path dataGen = folder.getRoot().toPath().resolve("DataGen.java");
+        Files.write(dataGen, "public class DataGen {}".getBytes(StandardCharsets.UTF_8));
+        Path other = folder.newFolder().toPath().resolve("DataGen.java");
+        Files.write(other, "public class DataGen {}".getBytes(StandardCharsets.UTF_8));
+        Map<String, InputPool> pools = new HashMap<>();
+        String first = InputPool.key(dataGen);
+        pools.put(first, new InputPool(n -> n));
+        pools.put(InputPool.key(other), new InputPool(n -> n));
+        assertEquals(first, InputPool.key(dataGen));
+
+        Files.write(dataGen, "public class DataGen { }".getBytes(StandardCharsets.UTF_8));
+        String second = InputPool.key(dataGen);
+        assertNotEquals("muudetud faili tunnus pidi muutuma", first, second);
+        InputPool.dropStale(pools, second);
+        assertFalse(pools.containsKey(first));
+        // teise kausta sama nimega genereerija hoidla jääb alles
+        assertTrue(pools.containsKey(InputPool.key(other)));
+    }
+}
@@ -0,0 +1,65 @@
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.lang.reflect.Method;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Map;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+public class InstrumenterTest {
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    @Test
+    public void libraryCallsAreCountedSeparately() throws Exception {
+        ProbeThread thread = run("import java.util.Arrays;\n" +
+                "public class Sorter {\n" +
+                "    public static void start(long n) {\n" +
+                "        Arrays.sort(new int[(int) n]);\n" +
+                "        helper();\n" +
+                "    }\n" +
+                "    private static void helper() {\n" +
+                "    }\n" +
+                "}\n");
+        // meetodite start ja helper algus, Arrays.sort on üks operatsioon
+        assertEquals(2, thread.operations());
+        assertEquals(1, thread.libraryCalls());
+    }
+
+    @Test
+    public void ownLoopIsCountedPerIteration() throws Exception {
+        ProbeThread thread = run("public class Loop {\n" +
+                "    public static void start(long n) {\n" +
+                "        long c = 0;\n" +
+                "        for (long i = 0; i < n; i++) c++;\n" +
+                "    }\n" +
+                "}\n");
+        assertTrue("tsükli iteratsioonid pidid loendisse minema: " + thread.operations(), thread.operations() >= 1000);
+        assertEquals(0, thread.libraryCalls());
+    }
+
+    private ProbeThread run(String source) throws Exception {
+        String name = source.substring(source.indexOf("class ") + 6, source.indexOf(" {"));
+        Path file = folder.getRoot().toPath().resolve(name + ".java");
+        Files.write(file, source.getBytes(StandardCharsets.UTF_8));
+        Map<String, byte[]> classes = Instrumenter.instrument(InMemoryCompiler.compile(file), false, true);
+        Method method = new InMemoryCompiler.InMemoryClassLoader(classes).loadClass(name).getMethod("start", long.class);
+        Throwable[] failure = new Throwable[1];
+        ProbeThread thread = new ProbeThread(() -> {
+            try {
+                method.invoke(null, 1000L);
+            } catch (ReflectiveOperationException e) {
+                failure[0] = e;
+            }
+        });
+        thread.start();
+        thread.join();
+        if (failure[0] != null) throw new AssertionError(failure[0]);
+        return thread;
+    }
+}
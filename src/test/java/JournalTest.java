@@ -0,0 +1,112 @@
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.Arrays;
+import java.util.Properties;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+public class JournalTest {
+    private static final String KEY = "a1b2";
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    @Before
+    public void setUp() {
+        Properties config = new Properties();
+        config.setProperty("job.dir", folder.getRoot().toString());
+        Config.setOverrides(config);
+    }
+
+    @After
+    public void tearDown() {
+        Config.setOverrides(null);
+    }
+
+    private Path file() {
+        return folder.getRoot().toPath().resolve("job.journal");
+    }
+
+    /**
+     * Kirjutab päevikusse kaks lõpetatud sammu ning ühe pooleli jäänud mõõtmise
+     */
+    private void writeJob() throws Exception {
+        ResultHolder holder = new ResultHolder();
+        try (Journal journal = Journal.open("job", KEY, holder)) {
+            holder.addTime(10, 1.0);
+            holder.addTime(10, 2.0);
+            journal.point(10, 1.5);
+            holder.addTime(20, 3.0);
+            holder.addTimeout(20, 100.0);
+            journal.point(20, Double.POSITIVE_INFINITY);
+            holder.addTime(30, 5.0);
+        }
+    }
+
+    @Test
+    public void replayRestoresFinishedSteps() throws Exception {
+        writeJob();
+        ResultHolder holder = new ResultHolder();
+        try (Journal journal = Journal.open("job", KEY, holder)) {
+            assertEquals(Double.valueOf(1.5), journal.point(10));
+            assertEquals(Double.valueOf(Double.POSITIVE_INFINITY), journal.point(20));
+            assertNull(journal.point(30));
+        }
+        // suuruse 30 mõõtmine jäi pooleli ning tehakse uuesti
+        assertEquals("ResultHolder{results={10=[1.0, 2.0], 20=[3.0]}}", holder.toString());
+    }
+
+    @Test
+    public void partialTrailingRecordIsTruncated() throws Exception {
+        writeJob();
+        Files.write(file(), new byte[]{1, 0, 0}, StandardOpenOption.APPEND);
+        ResultHolder holder = new ResultHolder();
+        try (Journal journal = Journal.open("job", KEY, holder)) {
+            assertEquals(Double.valueOf(1.5), journal.point(10));
+            holder.addTime(30, 6.0);
+            journal.point(30, 6.0);
+        }
+        ResultHolder resumed = new ResultHolder();
+        try (Journal journal = Journal.open("job", KEY, resumed)) {
+            assertNotNull(journal);
+            assertEquals("ResultHolder{results={10=[1.0, 2.0], 20=[3.0], 30=[6.0]}}", resumed.toString());
+        }
+    }
+
+    @Test
+    public void repeatedRecordsAreReplayedOnce() throws Exception {
+        writeJob();
+        byte[] bytes = Files.readAllBytes(file());
+        int header = 4 + 2 + KEY.length();
+        Files.write(file(), Arrays.copyOfRange(bytes, header, bytes.length), StandardOpenOption.APPEND);
+        ResultHolder holder = new ResultHolder();
+        try (Journal journal = Journal.open("job", KEY, holder)) {
+            assertNotNull(journal);
+            assertEquals("ResultHolder{results={10=[1.0, 2.0], 20=[3.0]}}", holder.toString());
+        }
+    }
+
+    @Test
+    public void journalOfOtherSubmissionIsDiscarded() throws Exception {
+        writeJob();
+        ResultHolder holder = new ResultHolder();
+        try (Journal journal = Journal.open("job", "c3d4", holder)) {
+            assertNull(journal.point(10));
+        }
+        assertTrue(holder.isEmpty());
+    }
+
+    @Test(expected = AnalysisException.class)
+    public void rejectsIdOutsideJobDir() {
+        Journal.open("../job", KEY, new ResultHolder());
+    }
+}
@@ -0,0 +1,88 @@
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+public class OutputVerifierTest {
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    private OutputVerifier verifier(String expected, boolean abort) throws IOException {
+        Path file = folder.newFile().toPath();
+        Files.write(file, expected.getBytes(StandardCharsets.UTF_8));
+        return new OutputVerifier(file, abort);
+    }
+
+    private boolean verify(String expected, String actual) throws IOException {
+        try (OutputVerifier verifier = verifier(expected, false)) {
+            byte[] bytes = actual.getBytes(StandardCharsets.UTF_8);
+            // kirjutatakse ühe baidi kaupa, et reavahetus \r\n jaguneks kahe kirjutamise vahel
+            for (byte b : bytes) {
+                verifier.write(b);
+            }
+            return verifier.finish();
+        }
+    }
+
+    @Test
+    public void lineEndingsAreEquivalent() throws IOException {
+        assertTrue(verify("1\r\n2\r\n", "1\n2\n"));
+        assertTrue(verify("1\n2\n", "1\r\n2\r\n"));
+        assertTrue(verify("1\r2\r", "1\n2\n"));
+        assertTrue(verify("1\n\n2\n", "1\r\n\r\n2\r\n"));
+    }
+
+    @Test
+    public void finalNewlineIsOptional() throws IOException {
+        assertTrue(verify("1\n2", "1\n2\n"));
+        assertTrue(verify("1\n2\n", "1\n2"));
+        assertTrue(verify("", ""));
+    }
+
+    @Test
+    public void extraAndMissingLinesDiffer() throws IOException {
+        assertFalse(verify("1\n", "1\n2\n"));
+        assertFalse(verify("1\n2\n", "1\n"));
+        assertFalse(verify("1\n", "1\n\n"));
+        assertFalse(verify("12\n", "1\n"));
+    }
+
+    @Test
+    public void describeShowsFirstDifferentLine() throws IOException {
+        try (OutputVerifier verifier = verifier("a\nb\nc\n", false)) {
+            verifier.write("a\nx\nc\n".getBytes(StandardCharsets.UTF_8));
+            assertFalse(verifier.matches());
+            assertEquals("real 2 oodati 'b', saadi 'x'", verifier.describe());
+        }
+        try (OutputVerifier verifier = verifier("a\nb\n", false)) {
+            verifier.write("a\n".getBytes(StandardCharsets.UTF_8));
+            assertFalse(verifier.finish());
+            assertEquals("real 2 oodati 'b', saadi '<väljundi lõpp>'", verifier.describe());
+        }
+    }
+
+    @Test
+    public void abortThrowsMismatchOnFirstDifferentByte() throws IOException {
+        try (OutputVerifier verifier = verifier("abc\n", true)) {
+            verifier.write('a');
+            try {
+                verifier.write('x');
+                fail("Erinev bait pidi viskama erindi Mismatch");
+            } catch (OutputVerifier.Mismatch expected) {
+                assertFalse(verifier.matches());
+            }
+            // pärast erinevust ülejäänud väljundit ei võrrelda
+            verifier.write('c');
+            assertFalse(verifier.finish());
+        }
+    }
+}
@@ -0,0 +1,36 @@
+import org.junit.Test;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+public class PointPlannerTest {
+    @Test
+    public void timeoutNarrowsRangeBelowTimedOutSize() {
+        PointPlanner planner = new PointPlanner(1000000, 30);
+        long timedOut = 0;
+        int measuredBelow = 0;
+        for (long n = planner.next(); n >= 0; n = planner.next()) {
+            if (timedOut > 0) {
+                assertTrue("suurus " + n + " ei ole ületanud suurusest väiksem", n < timedOut);
+                measuredBelow++;
+            }
+            if (n > 100000) {
+                if (timedOut == 0 || n < timedOut) timedOut = n;
+                planner.timeout(n);
+            } else {
+                planner.record(n, 1e-6 * n * n);
+            }
+        }
+        assertTrue(timedOut > 0);
+        assertTrue("pärast ajapiirangu ületamist mõõdeti liiga vähe: " + measuredBelow, measuredBelow >= 5);
+    }
+
+    @Test
+    public void bestModelComesFromRegistry() {
+        PointPlanner planner = new PointPlanner(100000, 30);
+        for (long n = planner.next(); n >= 0; n = planner.next()) {
+            planner.record(n, 1e-6 * n * n + 1);
+        }
+        assertEquals("n^2", planner.bestModel());
+    }
+}
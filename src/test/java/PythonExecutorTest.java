@@ -0,0 +1,90 @@
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.StringReader;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Properties;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+import static org.junit.Assume.assumeTrue;
+
+public class PythonExecutorTest {
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+    private PythonExecutor executor;
+
+    @Before
+    public void setUp() {
+        Properties config = new Properties();
+        config.setProperty("function.name", "measured");
+        config.setProperty("function.goal.time", "5000");
+        Config.setOverrides(config);
+    }
+
+    @After
+    public void tearDown() {
+        if (executor != null) executor.stopWorker();
+        Config.setOverrides(null);
+    }
+
+    @Test
+    public void parseResponseSkipsUnknownLines() throws IOException {
+        BufferedReader reader = new BufferedReader(new StringReader("foo\n@@time 12.5\n@@time error\n"));
+        assertEquals("12.5", PythonExecutor.parseResponse(reader));
+        assertEquals("error", PythonExecutor.parseResponse(reader));
+        assertNull(PythonExecutor.parseResponse(reader));
+    }
+
+    @Test
+    public void outputWithoutNewlineDoesNotHideResponse() throws Exception {
+        executor = executor("import sys\n" +
+                "def measured(n):\n" +
+                "    print('foo', end='')\n" +
+                "    sys.stdout.flush()\n", null);
+        double first = executor.runPythonFunction(10L, 1.0);
+        double second = executor.runPythonFunction(20L, 1.0);
+        assertTrue(first >= 0 && first < 5000);
+        assertTrue(second >= 0 && second < 5000);
+    }
+
+    @Test
+    public void dataGenErrorIsReportedAsAnalysisError() throws Exception {
+        executor = executor("def measured(n):\n    pass\n",
+                "def getInput(n):\n    raise ValueError('vigane sisend')\n");
+        try {
+            executor.runPythonFunction(10L, 1.0);
+            fail("Sisendi genereerija viga pidi analüüsi lõpetama");
+        } catch (AnalysisException expected) {
+            // oodatud
+        }
+    }
+
+    private PythonExecutor executor(String module, String dataGen) throws IOException, InterruptedException {
+        assumeTrue(pythonAvailable());
+        Path dir = folder.getRoot().toPath();
+        Path source = dir.resolve("submission.py");
+        Files.write(source, module.getBytes(StandardCharsets.UTF_8));
+        if (dataGen != null) Files.write(dir.resolve("datagen.py"), dataGen.getBytes(StandardCharsets.UTF_8));
+        PythonExecutor executor = new PythonExecutor(source, dir.toString());
+        executor.writeRunner();
+        return executor;
+    }
+
+    private static boolean pythonAvailable() throws InterruptedException {
+        try {
+            return new ProcessBuilder("python3", "--version").start().waitFor() == 0;
+        } catch (IOException e) {
+            return false;
+        }
+    }
+}
@@ -0,0 +1,70 @@
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.nio.file.Path;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+
+public class ResultCacheTest {
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    private static String key(int i) {
+        return String.format("%064x", i);
+    }
+
+    private static byte[] data(int i) {
+        byte[] data = new byte[100];
+        data[0] = (byte) i;
+        return data;
+    }
+
+    @Test
+    public void compactKeepsRecentlyUsedEntries() throws Exception {
+        ResultCache cache = new ResultCache(folder.getRoot().toPath().resolve("cache"), 2048);
+        cache.put(key(0), data(0));
+        for (int i = 1; i < 30; i++) {
+            // kirje 0 on alati viimati kasutatud, seega ülekirjutamisel jääb see alles
+            assertArrayEquals(data(0), cache.get(key(0)));
+            cache.put(key(i), data(i));
+            // kasutusaeg on millisekundi täpsusega, järgmine lugemine peab olema hilisem
+            Thread.sleep(2);
+        }
+        assertArrayEquals(data(0), cache.get(key(0)));
+        assertArrayEquals(data(29), cache.get(key(29)));
+        assertNull("vanim kasutamata kirje pidi olema eemaldatud", cache.get(key(1)));
+    }
+
+    @Test
+    public void refreshSeesEntriesOfOtherInstances() throws Exception {
+        Path file = folder.getRoot().toPath().resolve("cache");
+        ResultCache first = new ResultCache(file, 2048);
+        ResultCache second = new ResultCache(file, 2048);
+        first.put(key(1), data(1));
+        assertArrayEquals(data(1), second.get(key(1)));
+        for (int i = 2; i < 30; i++) {
+            first.put(key(i), data(i));
+        }
+        // esimene kirjutas faili vahepeal üle, teine peab indeksi uuesti lugema
+        assertArrayEquals(data(29), second.get(key(29)));
+        assertNull(second.get(key(2)));
+    }
+
+    @Test
+    public void existingLargerFileKeepsItsEntries() throws Exception {
+        Path file = folder.getRoot().toPath().resolve("cache");
+        ResultCache large = new ResultCache(file, 8192);
+        for (int i = 0; i < 40; i++) {
+            large.put(key(i), data(i));
+        }
+        ResultCache small = new ResultCache(file, 1024);
+        for (int i = 0; i < 40; i++) {
+            assertNotNull("kirje " + i + " kadus väiksema cache.size korral", small.get(key(i)));
+        }
+        small.put(key(40), data(40));
+        assertArrayEquals(data(40), large.get(key(40)));
+    }
+}
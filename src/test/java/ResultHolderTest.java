@@ -0,0 +1,108 @@
+import org.junit.After;
+import org.junit.Test;
+
+import java.io.ByteArrayOutputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.util.Arrays;
+import java.util.Properties;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+public class ResultHolderTest {
+    @After
+    public void tearDown() {
+        Config.setOverrides(null);
+    }
+
+    private static void configure(String key, String value) {
+        Properties config = new Properties();
+        config.setProperty(key, value);
+        Config.setOverrides(config);
+    }
+
+    @Test(expected = AnalysisException.class)
+    public void rejectsUnknownEstimator() {
+        configure("result.estimator", "medain");
+        new ResultHolder();
+    }
+
+    @Test(expected = AnalysisException.class)
+    public void rejectsTrimThatLeavesNothingToAverage() {
+        configure("result.trim", "0.5");
+        new ResultHolder();
+    }
+
+    @Test
+    public void equalTimesAreLeftToComplexityFinder() {
+        ResultHolder times = new ResultHolder();
+        ResultHolder memory = new ResultHolder("Oletatav mälukeerukus", 64);
+        double[] x = new double[20];
+        double[] y = new double[20];
+        for (int i = 0; i < x.length; i++) {
+            // kiire meetodi tööajad, mis ümardati sama millisekundini
+            x[i] = 1000 * (i + 1);
+            y[i] = 1;
+            times.addTime((long) x[i], y[i]);
+            memory.addTime((long) x[i], 1e-3 * x[i]);
+        }
+        assertEquals("Comment :=>> Oletatav mälukeerukus: O(1)", memory.getFunction());
+        assertEquals("Comment :=>> Oletatav ajaline keerukus: O(" + ComplexityFinder.findFunction(x, y, null) + ")",
+                times.getFunction());
+    }
+
+    @Test
+    public void parsesEstimatorIgnoringCase() {
+        assertEquals(ResultHolder.Estimator.TRIMMED, ResultHolder.Estimator.parse("Trimmed"));
+    }
+
+    private static byte[] write(ResultHolder... holders) throws IOException {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        DataOutputStream out = new DataOutputStream(bytes);
+        for (ResultHolder holder : holders) {
+            holder.writeTo(out);
+        }
+        out.flush();
+        return bytes.toByteArray();
+    }
+
+    @Test
+    public void readFromRestoresWrittenHolders() throws IOException {
+        ResultHolder times = new ResultHolder();
+        times.addTime(10, 1.0);
+        times.addTime(10, 2.0);
+        times.addTimeout(20, 100.0);
+        ResultHolder memory = new ResultHolder();
+        memory.addTime(10, 64.0);
+        ResultHolder restoredTimes = new ResultHolder();
+        ResultHolder restoredMemory = new ResultHolder();
+        ResultHolder.readFrom(write(times, memory), restoredTimes, restoredMemory);
+        assertEquals(times.toString(), restoredTimes.toString());
+        assertEquals(memory.toString(), restoredMemory.toString());
+    }
+
+    @Test
+    public void truncatedDataLeavesAllHoldersUnchanged() throws IOException {
+        ResultHolder times = new ResultHolder();
+        times.addTime(10, 1.0);
+        byte[] data = write(times, times);
+        ResultHolder first = new ResultHolder();
+        ResultHolder second = new ResultHolder();
+        try {
+            // esimese hoidla andmed on terved, teise omad poolikud
+            ResultHolder.readFrom(Arrays.copyOf(data, data.length - 4), first, second);
+            fail("poolikud andmed pidid andma vea");
+        } catch (IOException e) {
+            assertTrue(first.isEmpty());
+            assertTrue(second.isEmpty());
+        }
+    }
+
+    @Test(expected = IOException.class)
+    public void rowCountIsCheckedAgainstLength() throws IOException {
+        ResultHolder.readFrom(ByteBuffer.allocate(8).putInt(Integer.MAX_VALUE).array(), new ResultHolder());
+    }
+}